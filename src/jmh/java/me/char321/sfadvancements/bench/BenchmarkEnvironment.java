@@ -0,0 +1,94 @@
+package me.char321.sfadvancements.bench;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.AdvancementBuilder;
+import me.char321.sfadvancements.api.AdvancementGroup;
+import me.char321.sfadvancements.api.criteria.Criterion;
+import me.char321.sfadvancements.core.criteria.completer.CriterionCompleter;
+import me.char321.sfadvancements.util.Utils;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * boots a mock server with slimefun and sfa loaded, for the benchmarks and simulators <br>
+ * only one environment can exist per jvm, which is fine since jmh forks for every benchmark
+ */
+public final class BenchmarkEnvironment {
+    private static ServerMock server;
+    private static int groups = 0;
+
+    private BenchmarkEnvironment() {}
+
+    public static ServerMock start() {
+        if (server != null) {
+            return server;
+        }
+        server = MockBukkit.mock();
+        MockBukkit.load(Slimefun.class);
+        // sfa refuses to start without it
+        MockBukkit.createMockPlugin("GuizhanLibPlugin");
+        MockBukkit.load(SFAdvancements.class);
+
+        SFAdvancements.getMainConfig().setValue("use-advancements-api", false);
+        SFAdvancements.getMainConfig().setValue("auto-update", false);
+        // keeps journal queueing and fsync out of the progress numbers
+        SFAdvancements.getMainConfig().setValue("progress-journal", false);
+        // simulated players fire events faster than the rate limit allows
+        for (String type : new String[] {"block-break", "place", "interact"}) {
+            SFAdvancements.getMainConfig().setValue("rate-limit." + type + ".rate", 0);
+        }
+        SFAdvancements.getRegistry().getCompleters().values().forEach(CriterionCompleter::reload);
+        // loads the default groups and advancements
+        server.getScheduler().performOneTick();
+        return server;
+    }
+
+    public static void stop() {
+        if (server != null) {
+            MockBukkit.unmock();
+            server = null;
+        }
+    }
+
+    /**
+     * registers advancements with one criterion each, in a new group
+     *
+     * @param count how many advancements to register
+     * @param criterion creates the criterion of the i-th advancement
+     * @return the registered criteria, in order
+     */
+    public static List<Criterion> registerAdvancements(int count, IntFunction<Criterion> criterion) {
+        String groupId = "bench_" + groups++;
+        AdvancementGroup group = new AdvancementGroup(groupId, new ItemStack(Material.STONE));
+        group.register();
+
+        List<Criterion> res = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Criterion cri = criterion.apply(i);
+            new AdvancementBuilder()
+                    .key(Utils.keyOf(groupId + "_" + i))
+                    .group(group)
+                    .display(new ItemStack(Material.STONE))
+                    .frame("TASK")
+                    .name(groupId + " " + i)
+                    .criteria(List.of(cri))
+                    .register();
+            res.add(cri);
+        }
+        return res;
+    }
+
+    /**
+     * a criterion that can't be completed during a benchmark, so every perform changes the progress
+     */
+    public static Criterion endlessCriterion(int i) {
+        return new Criterion("c" + i, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,77 @@
+package me.char321.sfadvancements.bench;
+
+import be.seeseemelk.mockbukkit.ServerMock;
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.criteria.BlockBreakCriterion;
+import me.char321.sfadvancements.core.criteria.completer.BlockBreakCriterionCompleter;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * dispatching a block break through the completer when every criterion is in the same material bucket
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompleterBenchmark {
+    @Param({"10", "100", "1000"})
+    public int bucketSize;
+
+    private BlockBreakCriterionCompleter completer;
+    private BlockBreakEvent hit;
+    private BlockBreakEvent miss;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ServerMock server = BenchmarkEnvironment.start();
+        BenchmarkEnvironment.registerAdvancements(bucketSize,
+                i -> new BlockBreakCriterion("c" + i, Integer.MAX_VALUE, "c" + i, new ItemStack(Material.STONE)));
+        completer = (BlockBreakCriterionCompleter) SFAdvancements.getRegistry().getCompleters().get(BlockBreakCriterion.class);
+
+        Player player = server.addPlayer();
+        World world = server.addSimpleWorld("bench");
+        Block stone = world.getBlockAt(0, 64, 0);
+        stone.setType(Material.STONE);
+        Block dirt = world.getBlockAt(1, 64, 0);
+        dirt.setType(Material.DIRT);
+        hit = new BlockBreakEvent(stone, player);
+        miss = new BlockBreakEvent(dirt, player);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkEnvironment.stop();
+    }
+
+    @Benchmark
+    public void dispatchHit() {
+        completer.onBlockBreak(hit);
+    }
+
+    @Benchmark
+    public void dispatchMiss() {
+        completer.onBlockBreak(miss);
+    }
+}
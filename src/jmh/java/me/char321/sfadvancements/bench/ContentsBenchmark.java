@@ -0,0 +1,70 @@
+package me.char321.sfadvancements.bench;
+
+import be.seeseemelk.mockbukkit.ServerMock;
+import me.char321.sfadvancements.util.Utils;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Utils#getContents} on a full player inventory, which runs on every inventory open and close
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentsBenchmark {
+    /**
+     * how many different items the inventory holds, the rest are duplicates
+     */
+    @Param({"1", "9", "36"})
+    public int distinct;
+
+    private Player player;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ServerMock server = BenchmarkEnvironment.start();
+        player = server.addPlayer();
+
+        Material[] materials = {Material.STONE, Material.DIRT, Material.IRON_INGOT, Material.GOLD_INGOT, Material.DIAMOND, Material.COAL};
+        for (int slot = 0; slot < 36; slot++) {
+            int kind = slot % distinct;
+            ItemStack item = new ItemStack(materials[kind % materials.length], 1 + slot % 64);
+            // named items like slimefun items, so similar items don't compare equal by material alone
+            ItemMeta meta = item.getItemMeta();
+            meta.setDisplayName("item " + kind);
+            item.setItemMeta(meta);
+            player.getInventory().setItem(slot, item);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkEnvironment.stop();
+    }
+
+    @Benchmark
+    public Map<ItemStack, Integer> getContents() {
+        return Utils.getContents(player.getInventory());
+    }
+}
@@ -0,0 +1,369 @@
+package me.char321.sfadvancements.bench;
+
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
+import io.github.thebusybiscuit.slimefun4.utils.SlimefunUtils;
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.Advancement;
+import me.char321.sfadvancements.api.AdvancementBuilder;
+import me.char321.sfadvancements.api.AdvancementGroup;
+import me.char321.sfadvancements.api.criteria.BlockBreakCriterion;
+import me.char321.sfadvancements.api.criteria.ConsumeCriterion;
+import me.char321.sfadvancements.api.criteria.Criterion;
+import me.char321.sfadvancements.api.criteria.InventoryCriterion;
+import me.char321.sfadvancements.api.criteria.MobKillCriterion;
+import me.char321.sfadvancements.api.criteria.PlaceCriterion;
+import me.char321.sfadvancements.api.reward.CommandReward;
+import me.char321.sfadvancements.core.metrics.CompleterStats;
+import me.char321.sfadvancements.core.metrics.Histogram;
+import me.char321.sfadvancements.util.Utils;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.player.PlayerItemConsumeEvent;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * a headless load test: simulated players fire gameplay events at fixed rates against a mock server <br>
+ * reports the time and allocations per tick, the time spent in sfa, save times,
+ * and checks that the final progress matches what the fired events should have produced. <br>
+ * run with:
+ * <pre>mvn -Pjmh test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=me.char321.sfadvancements.bench.LoadSimulator -Dexec.args="--players=300 --seconds=60"</pre>
+ *
+ * options (rates are events per player per second):
+ * <ul>
+ *     <li>--players=300</li>
+ *     <li>--seconds=60</li>
+ *     <li>--seed=1</li>
+ *     <li>--advancements=500, how many advancements to generate</li>
+ *     <li>--file=path, an advancements.yml to load instead of generating advancements</li>
+ *     <li>--break-rate=2, --place-rate=2, --kill-rate=0.2, --consume-rate=0.1, --pickup-rate=0.5, --inventory-rate=0.2</li>
+ * </ul>
+ */
+public final class LoadSimulator {
+    private static final Material[] BLOCKS = {Material.STONE, Material.DIRT, Material.OAK_LOG, Material.COAL_ORE, Material.IRON_ORE, Material.SAND, Material.GRAVEL};
+    private static final Material[] FOODS = {Material.BREAD, Material.APPLE, Material.COOKED_BEEF, Material.CARROT};
+    private static final EntityType[] MOBS = {EntityType.ZOMBIE, EntityType.SKELETON, EntityType.SPIDER, EntityType.COW};
+
+    private final Map<String, String> options;
+    private final Random random;
+    private final ServerMock server;
+    private World world;
+    private final List<PlayerMock> players = new ArrayList<>();
+    // how many matching events each player fired, by criterion
+    private final Map<UUID, Map<Criterion, Integer>> expected = new HashMap<>();
+    private final List<Criterion> countedCriteria = new ArrayList<>();
+    private boolean killsSupported = true;
+
+    private LoadSimulator(Map<String, String> options) {
+        this.options = options;
+        this.random = new Random(getLong("seed", 1));
+        this.server = BenchmarkEnvironment.start();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+
+        LoadSimulator simulator = new LoadSimulator(options);
+        boolean passed;
+        try {
+            passed = simulator.run();
+        } finally {
+            BenchmarkEnvironment.stop();
+        }
+        if (!passed) {
+            throw new AssertionError("负载模拟的进度校验失败, seed=" + simulator.getLong("seed", 1));
+        }
+    }
+
+    /**
+     * @return whether every counted progress matched what was expected
+     */
+    private boolean run() throws IOException {
+        String file = options.get("file");
+        if (file != null) {
+            loadAdvancements(new File(file));
+        } else {
+            generateAdvancements((int) getLong("advancements", 500));
+        }
+        for (Advancement adv : SFAdvancements.getRegistry().getAdvancements().values()) {
+            for (Criterion criterion : adv.getCriteria()) {
+                if (isCounted(criterion)) {
+                    countedCriteria.add(criterion);
+                }
+            }
+        }
+
+        world = server.addSimpleWorld("simulation");
+        int playerCount = (int) getLong("players", 300);
+        for (int i = 0; i < playerCount; i++) {
+            PlayerMock player = server.addPlayer();
+            players.add(player);
+            expected.put(player.getUniqueId(), new HashMap<>());
+        }
+
+        int ticks = (int) getLong("seconds", 60) * 20;
+        double breakRate = getDouble("break-rate", 2) / 20;
+        double placeRate = getDouble("place-rate", 2) / 20;
+        double killRate = getDouble("kill-rate", 0.2) / 20;
+        double consumeRate = getDouble("consume-rate", 0.1) / 20;
+        double pickupRate = getDouble("pickup-rate", 0.5) / 20;
+        double inventoryRate = getDouble("inventory-rate", 0.2) / 20;
+
+        System.out.println("模拟 " + playerCount + " 个玩家, " + ticks + " tick, " + SFAdvancements.getRegistry().getAdvancements().size()
+                + " 个进度 (" + countedCriteria.size() + " 个可校验的完成条件)");
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Histogram tickTime = new Histogram();
+        long sfaBefore = totalHandlerNanos();
+        long allocated = 0;
+        long events = 0;
+        long start = System.nanoTime();
+        for (int tick = 0; tick < ticks; tick++) {
+            List<Event> batch = new ArrayList<>();
+            for (int i = 0; i < players.size(); i++) {
+                PlayerMock player = players.get(i);
+                int column = i;
+                repeat(breakRate, () -> batch.add(breakEvent(player, column)));
+                repeat(placeRate, () -> batch.add(placeEvent(player, column)));
+                repeat(killRate, () -> {
+                    Event e = killEvent(player);
+                    if (e != null) {
+                        batch.add(e);
+                    }
+                });
+                repeat(consumeRate, () -> batch.add(consumeEvent(player)));
+                repeat(pickupRate, () -> batch.add(pickupEvent(player)));
+                repeat(inventoryRate, () -> batch.add(new InventoryCloseEvent(player.getOpenInventory())));
+            }
+            events += batch.size();
+
+            long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+            long tickStart = System.nanoTime();
+            for (Event e : batch) {
+                server.getPluginManager().callEvent(e);
+            }
+            server.getScheduler().performOneTick();
+            tickTime.record(System.nanoTime() - tickStart);
+            allocated += threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // let queued completions and rewards finish
+        while (SFAdvancements.getCompletionTask().size() > 0 || SFAdvancements.getRewardTask().getQueueDepth() > 0) {
+            server.getScheduler().performOneTick();
+        }
+
+        long sfaNanos = totalHandlerNanos() - sfaBefore;
+        System.out.println("事件: " + events + ", 用时 " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms");
+        System.out.printf("每tick: 平均 %.3fms, p50 %.3fms, p99 %.3fms, 最大 %.3fms%n",
+                tickTime.getMean() / 1e6, tickTime.getPercentile(0.5) / 1e6, tickTime.getPercentile(0.99) / 1e6, tickTime.getMax() / 1e6);
+        System.out.printf("sfa 处理事件: 每tick平均 %.3fms%n", sfaNanos / 1e6 / ticks);
+        System.out.printf("分配: 每tick %.1fKB, %.1fMB/s (模拟时间)%n", allocated / 1024.0 / ticks, allocated / 1048576.0 / (ticks / 20.0));
+        for (Map.Entry<Class<? extends Criterion>, CompleterStats> entry : SFAdvancements.getStats().getCompleters().entrySet()) {
+            Histogram time = entry.getValue().getHandlerTime();
+            System.out.printf("  %s: %d 事件, %d 触发, p50 %.1fμs, p99 %.1fμs%n", entry.getKey().getSimpleName(), entry.getValue().getEvents(),
+                    entry.getValue().getMatched(), time.getPercentile(0.5) / 1e3, time.getPercentile(0.99) / 1e3);
+        }
+
+        long saveStart = System.nanoTime();
+        SFAdvancements.getAdvManager().save();
+        System.out.printf("保存所有玩家: %.1fms%n", (System.nanoTime() - saveStart) / 1e6);
+        long flushStart = System.nanoTime();
+        Set<UUID> failed = SFAdvancements.getAdvManager().flush(4, 10000);
+        System.out.printf("并行保存所有玩家: %.1fms, 失败 %d%n", (System.nanoTime() - flushStart) / 1e6, failed.size());
+
+        return verify();
+    }
+
+    private boolean verify() {
+        int checked = 0;
+        List<String> mismatches = new ArrayList<>();
+        for (PlayerMock player : players) {
+            Map<Criterion, Integer> counts = expected.get(player.getUniqueId());
+            for (Criterion criterion : countedCriteria) {
+                int want = Math.min(counts.getOrDefault(criterion, 0), criterion.getCount());
+                int got = SFAdvancements.getAdvManager().getCriterionProgress(player, criterion);
+                checked++;
+                if (want != got) {
+                    mismatches.add(player.getName() + " " + criterion.getAdvancement() + "/" + criterion.getId() + ": 期望 " + want + ", 实际 " + got);
+                }
+            }
+        }
+        System.out.println("校验 " + checked + " 个进度, 不一致 " + mismatches.size() + " 个");
+        for (String mismatch : mismatches.subList(0, Math.min(10, mismatches.size()))) {
+            System.out.println("  " + mismatch);
+        }
+        if (!killsSupported) {
+            System.out.println("注意: 当前 MockBukkit 不支持设置击杀者, 未模拟击杀事件");
+        }
+        return mismatches.isEmpty();
+    }
+
+    private void repeat(double rate, Runnable action) {
+        int n = (int) rate;
+        if (random.nextDouble() < rate - n) {
+            n++;
+        }
+        for (int i = 0; i < n; i++) {
+            action.run();
+        }
+    }
+
+    private Event breakEvent(PlayerMock player, int column) {
+        Material material = BLOCKS[random.nextInt(BLOCKS.length)];
+        Block block = world.getBlockAt(column, 10, random.nextInt(64));
+        block.setType(material);
+        expect(player, criterion -> criterion instanceof BlockBreakCriterion c && c.getItem().getType() == material);
+        return new BlockBreakEvent(block, player);
+    }
+
+    private Event placeEvent(PlayerMock player, int column) {
+        Material material = BLOCKS[random.nextInt(BLOCKS.length)];
+        ItemStack item = new ItemStack(material);
+        Block block = world.getBlockAt(column, 20, random.nextInt(64));
+        block.setType(material);
+        expect(player, criterion -> criterion instanceof PlaceCriterion c && SlimefunUtils.isItemSimilar(c.getItem(), item, false, false));
+        return new BlockPlaceEvent(block, block.getState(), block.getRelative(0, -1, 0), item, player, true, EquipmentSlot.HAND);
+    }
+
+    private Event killEvent(PlayerMock player) {
+        if (!killsSupported) {
+            return null;
+        }
+        EntityType type = MOBS[random.nextInt(MOBS.length)];
+        LivingEntity entity = (LivingEntity) world.spawnEntity(new Location(world, 0, 30, 0), type);
+        try {
+            entity.setKiller(player);
+        } catch (UnsupportedOperationException e) {
+            killsSupported = false;
+            entity.remove();
+            return null;
+        }
+        expect(player, criterion -> criterion instanceof MobKillCriterion c && c.getEntity() == type);
+        return new EntityDeathEvent(entity, new ArrayList<>());
+    }
+
+    private Event consumeEvent(PlayerMock player) {
+        ItemStack item = new ItemStack(FOODS[random.nextInt(FOODS.length)]);
+        expect(player, criterion -> criterion instanceof ConsumeCriterion c && SlimefunUtils.isItemSimilar(item, c.getItem(), false, false));
+        return new PlayerItemConsumeEvent(player, item);
+    }
+
+    private Event pickupEvent(PlayerMock player) {
+        ItemStack stack = new ItemStack(BLOCKS[random.nextInt(BLOCKS.length)], 1 + random.nextInt(16));
+        player.getInventory().addItem(stack.clone());
+        Item item = world.dropItem(player.getLocation(), stack);
+        return new EntityPickupItemEvent(player, item, 0);
+    }
+
+    private void expect(Player player, Predicate<Criterion> matches) {
+        Map<Criterion, Integer> counts = expected.get(player.getUniqueId());
+        for (Criterion criterion : countedCriteria) {
+            if (matches.test(criterion)) {
+                counts.merge(criterion, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * @return whether the simulator can predict the progress of the criterion from the events it fires
+     */
+    private static boolean isCounted(Criterion criterion) {
+        if (criterion instanceof BlockBreakCriterion c) {
+            return SlimefunItem.getByItem(c.getItem()) == null;
+        }
+        if (criterion instanceof PlaceCriterion c) {
+            return SlimefunItem.getByItem(c.getItem()) == null;
+        }
+        if (criterion instanceof ConsumeCriterion c) {
+            return SlimefunItem.getByItem(c.getItem()) == null;
+        }
+        return criterion instanceof MobKillCriterion;
+    }
+
+    private void generateAdvancements(int count) {
+        AdvancementGroup group = new AdvancementGroup("simulation", new ItemStack(Material.GRASS_BLOCK));
+        group.register();
+        for (int i = 0; i < count; i++) {
+            int amount = 1 + random.nextInt(50);
+            Criterion criterion = switch (i % 5) {
+                case 0 -> new BlockBreakCriterion("break", amount, "break", new ItemStack(BLOCKS[random.nextInt(BLOCKS.length)]));
+                case 1 -> new PlaceCriterion("place", amount, "place", BLOCKS[random.nextInt(BLOCKS.length)]);
+                case 2 -> new MobKillCriterion("kill", amount, "kill", MOBS[random.nextInt(MOBS.length)]);
+                case 3 -> new ConsumeCriterion("consume", amount, "consume", new ItemStack(FOODS[random.nextInt(FOODS.length)]));
+                default -> new InventoryCriterion("inventory", "inventory", new ItemStack(BLOCKS[random.nextInt(BLOCKS.length)]), amount);
+            };
+            new AdvancementBuilder()
+                    .key(Utils.keyOf("simulation_" + i))
+                    .group(group)
+                    .display(new ItemStack(Material.GRASS_BLOCK))
+                    .frame("TASK")
+                    .name("simulation " + i)
+                    .criteria(List.of(criterion))
+                    .rewards(List.of(new CommandReward("experience add %p% 1 levels")))
+                    .register();
+        }
+    }
+
+    private void loadAdvancements(File file) {
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+        for (String key : config.getKeys(false)) {
+            AdvancementBuilder builder = AdvancementBuilder.loadFromConfig(key, config.getConfigurationSection(key));
+            if (builder != null) {
+                builder.register();
+            }
+        }
+    }
+
+    private static long totalHandlerNanos() {
+        long total = 0;
+        for (CompleterStats stats : SFAdvancements.getStats().getCompleters().values()) {
+            Histogram time = stats.getHandlerTime();
+            total += (long) (time.getMean() * time.getCount());
+        }
+        return total;
+    }
+
+    private long getLong(String key, long def) {
+        String value = options.get(key);
+        return value == null ? def : Long.parseLong(value);
+    }
+
+    private double getDouble(String key, double def) {
+        String value = options.get(key);
+        return value == null ? def : Double.parseDouble(value);
+    }
+}
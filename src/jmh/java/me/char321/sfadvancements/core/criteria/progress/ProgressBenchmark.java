@@ -0,0 +1,94 @@
+package me.char321.sfadvancements.core.criteria.progress;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.criteria.Criterion;
+import me.char321.sfadvancements.bench.BenchmarkEnvironment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the per-player progress operations, with every advancement of the player having progress
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProgressBenchmark {
+    @Param({"10", "100", "1000"})
+    public int advancements;
+
+    private List<Criterion> criteria;
+    private PlayerProgress progress;
+    private JsonObject stored;
+    private UUID player;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkEnvironment.start();
+        criteria = BenchmarkEnvironment.registerAdvancements(advancements, BenchmarkEnvironment::endlessCriterion);
+
+        player = UUID.randomUUID();
+        progress = PlayerProgress.get(player);
+        for (Criterion criterion : criteria) {
+            progress.doCriterion(criterion);
+        }
+        progress.save();
+        File file = new File(SFAdvancements.instance().getDataFolder(), "advancements/" + player + ".json");
+        stored = JsonParser.parseString(Files.readString(file.toPath(), StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkEnvironment.stop();
+    }
+
+    private Criterion nextCriterion() {
+        Criterion criterion = criteria.get(next);
+        next = (next + 1) % criteria.size();
+        return criterion;
+    }
+
+    @Benchmark
+    public void doCriterion() {
+        progress.doCriterion(nextCriterion());
+    }
+
+    @Benchmark
+    public int getCriterionProgress() {
+        return progress.getCriterionProgress(nextCriterion());
+    }
+
+    @Benchmark
+    public PlayerProgress loadFromObject() {
+        return PlayerProgress.fromObject(player, stored);
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        progress.save();
+    }
+}
@@ -2,17 +2,26 @@ package me.char321.sfadvancements;
 
 import io.github.thebusybiscuit.slimefun4.api.SlimefunAddon;
 import io.github.thebusybiscuit.slimefun4.libraries.dough.config.Config;
+import me.char321.sfadvancements.api.Advancement;
 import me.char321.sfadvancements.api.AdvancementBuilder;
 import me.char321.sfadvancements.api.AdvancementGroup;
 import me.char321.sfadvancements.api.criteria.CriteriaTypes;
+import me.char321.sfadvancements.api.criteria.Criterion;
 import me.char321.sfadvancements.core.AdvManager;
 import me.char321.sfadvancements.core.AdvancementsItemGroup;
+import me.char321.sfadvancements.core.PlacedBlockTracker;
 import me.char321.sfadvancements.core.command.SFACommand;
 import me.char321.sfadvancements.core.criteria.completer.CriterionCompleter;
 import me.char321.sfadvancements.core.criteria.completer.DefaultCompleters;
+import me.char321.sfadvancements.core.criteria.progress.PlayerProgress;
+import me.char321.sfadvancements.core.criteria.progress.ProgressJournal;
 import me.char321.sfadvancements.core.gui.AdvGUIManager;
+import me.char321.sfadvancements.core.metrics.SFAMetrics;
+import me.char321.sfadvancements.core.metrics.Stats;
 import me.char321.sfadvancements.core.registry.AdvancementsRegistry;
 import me.char321.sfadvancements.core.tasks.AutoSaveTask;
+import me.char321.sfadvancements.core.tasks.CompletionTask;
+import me.char321.sfadvancements.core.tasks.RewardTask;
 import me.char321.sfadvancements.util.ConfigUtils;
 import me.char321.sfadvancements.util.Utils;
 import me.char321.sfadvancements.vanilla.VanillaHook;
@@ -21,14 +30,20 @@ import org.bstats.bukkit.Metrics;
 import org.bstats.charts.SimplePie;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.File;
-import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -36,8 +51,15 @@ public final class SFAdvancements extends JavaPlugin implements SlimefunAddon {
     private static SFAdvancements instance;
     private final AdvManager advManager = new AdvManager();
     private final AdvGUIManager guiManager = new AdvGUIManager();
-    private final AdvancementsRegistry registry = new AdvancementsRegistry();
+    // replaced as a whole on reload
+    private volatile AdvancementsRegistry registry = new AdvancementsRegistry();
     private final VanillaHook vanillaHook = new VanillaHook();
+    private final CompletionTask completionTask = new CompletionTask();
+    private final Stats stats = new Stats();
+    private RewardTask rewardTask;
+    private AutoSaveTask autoSaveTask;
+    private PlacedBlockTracker placedBlocks;
+    private ProgressJournal progressJournal;
 
     private Config config;
     private YamlConfiguration advancementConfig;
@@ -49,6 +71,11 @@ public final class SFAdvancements extends JavaPlugin implements SlimefunAddon {
 
     }
 
+    // only exists so mockbukkit can load the plugin in the tests and benchmarks
+    SFAdvancements(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
+
     @Override
     public void onEnable() {
         instance = this;
@@ -61,6 +88,7 @@ public final class SFAdvancements extends JavaPlugin implements SlimefunAddon {
         }
 
         config = new Config(this);
+        progressJournal = new ProgressJournal(new File(getDataFolder(), "journal"));
 
         detectCapabilities();
 
@@ -75,11 +103,22 @@ public final class SFAdvancements extends JavaPlugin implements SlimefunAddon {
         AdvancementsItemGroup.init(this);
 
         // init core
+        placedBlocks = new PlacedBlockTracker();
         DefaultCompleters.registerDefaultCompleters();
         CriteriaTypes.loadDefaultCriteria();
 
         info("启动自动保存任务...");
-        Bukkit.getScheduler().runTaskTimerAsynchronously(this, new AutoSaveTask(), 6000L, 6000L);
+        autoSaveTask = new AutoSaveTask(config.getConfiguration().getInt("autosave-interval", 300),
+                config.getConfiguration().getBoolean("autosave-staggered", true));
+        Bukkit.getScheduler().runTaskTimerAsynchronously(this, autoSaveTask, 20L, 20L);
+        Bukkit.getScheduler().runTaskTimer(this, completionTask, 1L, 1L);
+        Bukkit.getPluginManager().registerEvents(completionTask, this);
+        Bukkit.getPluginManager().registerEvents(advManager, this);
+        rewardTask = new RewardTask(config.getConfiguration().getInt("reward-queue-size", 10000),
+                config.getConfiguration().getInt("reward-commands-per-tick", 20));
+        Bukkit.getScheduler().runTaskTimer(this, rewardTask, 1L, 1L);
+
+        SFAMetrics.register();
 
         Metrics metrics = new Metrics(this, 14130);
         metrics.addCustomChart(new SimplePie("AdvancementAPI enabled",
@@ -93,6 +132,8 @@ public final class SFAdvancements extends JavaPlugin implements SlimefunAddon {
             info("正在从配置文件中加载进度...");
             loadAdvancements();
 
+            progressJournal.start(config.getConfiguration().getBoolean("progress-journal", true));
+
             if (config.getBoolean("use-advancements-api")) {
                 vanillaHook.init();
             }
@@ -103,10 +144,35 @@ public final class SFAdvancements extends JavaPlugin implements SlimefunAddon {
     @Override
     public void onDisable() {
         Bukkit.getScheduler().cancelTasks(this);
-        try {
-            advManager.save();
-        } catch (IOException e) {
-            getLogger().log(Level.SEVERE, e, () -> "无法保存进度");
+        SFAMetrics.unregister();
+        if (placedBlocks != null) {
+            placedBlocks.saveAll();
+        }
+        if (config != null) {
+            // players are kicked after plugins are disabled, so lazily tracked progress has to be added now
+            for (Player p : Bukkit.getOnlinePlayers()) {
+                for (CriterionCompleter completer : registry.getCompleters().values()) {
+                    completer.flush(p);
+                }
+            }
+            // the completed advancements are saved below, so their rewards have to be given now
+            completionTask.drain();
+            if (rewardTask != null) {
+                rewardTask.drain();
+            }
+            long start = System.nanoTime();
+            int players = advManager.getPlayerMap().size();
+            Set<UUID> failed = advManager.flush(config.getConfiguration().getInt("shutdown-save-threads", 4),
+                    config.getConfiguration().getLong("shutdown-save-timeout-ms", 10000));
+            info("已保存 " + (players - failed.size()) + "/" + players + " 个玩家的进度, 用时 "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+            if (!failed.isEmpty()) {
+                error("以下 " + failed.size() + " 个玩家的进度未能保存"
+                        + (progressJournal.isEnabled() ? ", 将在下次启动时从进度日志恢复: " : ": ") + failed);
+            }
+        }
+        if (progressJournal != null) {
+            progressJournal.close();
         }
     }
 
@@ -126,15 +192,53 @@ public final class SFAdvancements extends JavaPlugin implements SlimefunAddon {
         }
     }
 
-    public void reload() {
+    /**
+     * reloads the config, groups and advancements <br>
+     * the yaml files are read and parsed asynchronously. the items, groups and advancements are built from them
+     * and swapped in on the main thread in one go, so the old advancements keep working until then and cached progress is kept
+     *
+     * @return a future that completes on the main thread once the new registry is in use
+     */
+    public CompletableFuture<Void> reload() {
         config.reload();
-        advManager.getPlayerMap().clear();
-        registry.getAdvancements().clear();
-        registry.getAdvancementGroups().clear();
-        registry.getCompleters().values().forEach(CriterionCompleter::reload);
+        placedBlocks.reload();
+        AdvancementsRegistry previous = registry;
+        File groupFile = getResourceFile("groups.yml");
+        File advancementsFile = getResourceFile("advancements.yml");
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+            try {
+                YamlConfiguration groups = YamlConfiguration.loadConfiguration(groupFile);
+                YamlConfiguration advancements = YamlConfiguration.loadConfiguration(advancementsFile);
+                Utils.runSync(() -> {
+                    try {
+                        swapRegistry(new AdvancementsRegistry(previous), groups, advancements);
+                        future.complete(null);
+                    } catch (RuntimeException e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
 
-        loadGroups();
-        loadAdvancements();
+    private void swapRegistry(AdvancementsRegistry next, YamlConfiguration groups, YamlConfiguration advancements) {
+        // slimefun items and the criteria can only be built on the main thread
+        loadGroups(next, groups);
+        loadAdvancements(next, advancements);
+        // the completers are shared, so their criteria are rebuilt in the same tick as the swap
+        next.getCompleters().values().forEach(CriterionCompleter::reload);
+        registry = next;
+        groupConfig = groups;
+        advancementConfig = advancements;
+        registerCriteria(next);
+
+        for (PlayerProgress progress : advManager.getPlayerMap().values()) {
+            progress.remap();
+        }
 
         if (config.getBoolean("use-advancements-api")) {
             vanillaHook.reload();
@@ -142,31 +246,51 @@ public final class SFAdvancements extends JavaPlugin implements SlimefunAddon {
     }
 
     public void loadGroups() {
-        File groupFile = new File(getDataFolder(), "groups.yml");
-        if (!groupFile.exists()) {
-            saveResource("groups.yml", false);
-        }
-        groupConfig = YamlConfiguration.loadConfiguration(groupFile);
-        for (String key : groupConfig.getKeys(false)) {
-            String background = groupConfig.getString(key + ".background", "SLIME_BLOCK");
-            ItemStack display = ConfigUtils.getItem(groupConfig, key + ".display");
-            String frameType = groupConfig.getString(key + ".frame_type", "GOAL");
+        groupConfig = YamlConfiguration.loadConfiguration(getResourceFile("groups.yml"));
+        loadGroups(registry, groupConfig);
+    }
+
+    private static void loadGroups(AdvancementsRegistry target, YamlConfiguration groups) {
+        for (String key : groups.getKeys(false)) {
+            String background = groups.getString(key + ".background", "SLIME_BLOCK");
+            ItemStack display = ConfigUtils.getItem(groups, key + ".display");
+            String frameType = groups.getString(key + ".frame_type", "GOAL");
             AdvancementGroup group = new AdvancementGroup(key, display, frameType, background);
-            group.register();
+            group.register(target);
         }
     }
 
     public void loadAdvancements() {
-        File advancementsFile = new File(getDataFolder(), "advancements.yml");
-        if (!advancementsFile.exists()) {
-            saveResource("advancements.yml", false);
-        }
-        advancementConfig = YamlConfiguration.loadConfiguration(advancementsFile);
-        for (String key : advancementConfig.getKeys(false)) {
+        advancementConfig = YamlConfiguration.loadConfiguration(getResourceFile("advancements.yml"));
+        loadAdvancements(registry, advancementConfig);
+        registerCriteria(registry);
+    }
+
+    private static void loadAdvancements(AdvancementsRegistry target, YamlConfiguration advancements) {
+        for (String key : advancements.getKeys(false)) {
             AdvancementBuilder builder = AdvancementBuilder.loadFromConfig(key,
-                    advancementConfig.getConfigurationSection(key));
+                    advancements.getConfigurationSection(key), target);
             if (builder != null) {
-                builder.register();
+                builder.build().register(target);
+            }
+        }
+    }
+
+    /**
+     * @return the file in the data folder, saved from the jar first if it doesn't exist
+     */
+    private File getResourceFile(String name) {
+        File file = new File(getDataFolder(), name);
+        if (!file.exists()) {
+            saveResource(name, false);
+        }
+        return file;
+    }
+
+    private static void registerCriteria(AdvancementsRegistry target) {
+        for (Advancement adv : target.getAdvancements().values()) {
+            for (Criterion criterion : adv.getCriteria()) {
+                criterion.register();
             }
         }
     }
@@ -203,6 +327,30 @@ public final class SFAdvancements extends JavaPlugin implements SlimefunAddon {
         return instance.vanillaHook;
     }
 
+    public static CompletionTask getCompletionTask() {
+        return instance.completionTask;
+    }
+
+    public static AutoSaveTask getAutoSaveTask() {
+        return instance.autoSaveTask;
+    }
+
+    public static PlacedBlockTracker getPlacedBlocks() {
+        return instance.placedBlocks;
+    }
+
+    public static RewardTask getRewardTask() {
+        return instance.rewardTask;
+    }
+
+    public static Stats getStats() {
+        return instance.stats;
+    }
+
+    public static ProgressJournal getProgressJournal() {
+        return instance.progressJournal;
+    }
+
     public static Config getMainConfig() {
         return instance.config;
     }
@@ -3,6 +3,7 @@ package me.char321.sfadvancements.api;
 import me.char321.sfadvancements.SFAdvancements;
 import me.char321.sfadvancements.api.criteria.Criterion;
 import me.char321.sfadvancements.api.reward.Reward;
+import me.char321.sfadvancements.core.registry.AdvancementsRegistry;
 import me.char321.sfadvancements.util.Utils;
 import net.md_5.bungee.api.chat.BaseComponent;
 import net.md_5.bungee.api.chat.HoverEvent;
@@ -116,9 +117,18 @@ public class Advancement {
     }
 
     public void register() {
+        register(SFAdvancements.getRegistry());
+    }
+
+    /**
+     * adds this advancement to its group and the given registry, without registering its criteria
+     *
+     * @param registry the registry to add to
+     */
+    public void register(AdvancementsRegistry registry) {
         group.addAdvancement(this);
 //        group.getAdvancements().add(this);
-        SFAdvancements.getRegistry().getAdvancements().put(key, this);
+        registry.getAdvancements().put(key, this);
     }
 
     /**
@@ -138,6 +148,16 @@ public class Advancement {
      * @param p player
      */
     public void onComplete(Player p) {
+        onComplete(p, true);
+    }
+
+    /**
+     * gives rewards and completes the vanilla advancement, optionally sending the message of completion
+     *
+     * @param p player
+     * @param announce whether to announce the completion in chat
+     */
+    public void onComplete(Player p, boolean announce) {
         for (Reward reward : rewards) {
             reward.give(p);
         }
@@ -146,7 +166,7 @@ public class Advancement {
             SFAdvancements.getVanillaHook().complete(p, this.getKey());
         }
 
-        if (SFAdvancements.getMainConfig().getConfiguration().getBoolean("announce-advancements", true)) {
+        if (announce && SFAdvancements.getMainConfig().getConfiguration().getBoolean("announce-advancements", true)) {
             broadcastMessage(p);
         }
     }
@@ -157,7 +177,12 @@ public class Advancement {
         }
     }
 
-    private void broadcastMessage(Player p) {
+    /**
+     * announces in chat that a player completed this advancement
+     *
+     * @param p the player
+     */
+    public void broadcastMessage(Player p) {
         BaseComponent component = new TextComponent();
         component.addExtra(p.getName() + "取得了进度");
         BaseComponent sub = new TextComponent(getName());
@@ -3,10 +3,11 @@ package me.char321.sfadvancements.api;
 import me.char321.sfadvancements.SFAdvancements;
 import me.char321.sfadvancements.api.criteria.CriteriaTypes;
 import me.char321.sfadvancements.api.criteria.Criterion;
+import me.char321.sfadvancements.api.reward.CommandReward;
 import me.char321.sfadvancements.api.reward.Reward;
+import me.char321.sfadvancements.core.registry.AdvancementsRegistry;
 import me.char321.sfadvancements.util.ConfigUtils;
 import me.char321.sfadvancements.util.Utils;
-import org.bukkit.Bukkit;
 import org.bukkit.NamespacedKey;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.inventory.ItemStack;
@@ -27,12 +28,19 @@ public class AdvancementBuilder {
     private List<Reward> rewards = new ArrayList<>();
 
     public static AdvancementBuilder loadFromConfig(String key, ConfigurationSection config) {
+        return loadFromConfig(key, config, SFAdvancements.getRegistry());
+    }
+
+    /**
+     * loads an advancement from the config, looking up its group in the given registry
+     */
+    public static AdvancementBuilder loadFromConfig(String key, ConfigurationSection config, AdvancementsRegistry registry) {
         AdvancementBuilder builder = new AdvancementBuilder();
 
         builder.key(Utils.keyOf(key));
 
         String groupName = config.getString("group");
-        AdvancementGroup group = getGroup(groupName);
+        AdvancementGroup group = getGroup(groupName, registry);
         if (group == null) {
             SFAdvancements.warn(key + "进度的进度组 " + groupName + " 不存在!");
             return null;
@@ -103,11 +111,7 @@ public class AdvancementBuilder {
         ConfigurationSection rewardSection = config.getConfigurationSection("rewards");
         if(rewardSection != null) {
             for (String command : rewardSection.getStringList("commands")) {
-                rewards.add(p -> {
-                    Utils.runSync(() -> {
-                        Bukkit.getServer().dispatchCommand(Bukkit.getServer().getConsoleSender(), command.replace("%p%", p.getName()));
-                    });
-                });
+                rewards.add(new CommandReward(command));
             }
         }
         builder.rewards(rewards);
@@ -123,12 +127,12 @@ public class AdvancementBuilder {
      */
     @Nullable
     public static AdvancementGroup getGroup(String name) {
-        for (AdvancementGroup advgroup : SFAdvancements.getRegistry().getAdvancementGroups()) {
-            if (advgroup.getId().equals(name)) {
-                return advgroup;
-            }
-        }
-        return null;
+        return getGroup(name, SFAdvancements.getRegistry());
+    }
+
+    @Nullable
+    public static AdvancementGroup getGroup(String name, AdvancementsRegistry registry) {
+        return registry.getAdvancementGroup(name);
     }
 
     public AdvancementBuilder key(NamespacedKey key) {
@@ -185,12 +189,23 @@ public class AdvancementBuilder {
     }
 
     public void register() {
-        for (Criterion criterion : criteria) {
-            criterion.setAdvancement(key);
+        Advancement adv = build();
+        for (Criterion criterion : adv.getCriteria()) {
             criterion.register();
         }
-        Advancement adv = new Advancement(key, parent, group, display, frame, name, hidden, criteria.toArray(new Criterion[0]), rewards.toArray(new Reward[0]));
         adv.register();
     }
 
+    /**
+     * creates the advancement without registering it or its criteria
+     *
+     * @return the built advancement
+     */
+    public Advancement build() {
+        for (Criterion criterion : criteria) {
+            criterion.setAdvancement(key);
+        }
+        return new Advancement(key, parent, group, display, frame, name, hidden, criteria.toArray(new Criterion[0]), rewards.toArray(new Reward[0]));
+    }
+
 }
@@ -1,6 +1,7 @@
 package me.char321.sfadvancements.api;
 
 import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.core.registry.AdvancementsRegistry;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
@@ -32,7 +33,13 @@ public class AdvancementGroup {
     }
 
     public void register() {
-        SFAdvancements.getRegistry().getAdvancementGroups().add(this);
+        register(SFAdvancements.getRegistry());
+    }
+
+    public void register(AdvancementsRegistry registry) {
+        if (!registry.registerGroup(this)) {
+            SFAdvancements.warn("进度组 " + id + " 已被注册!");
+        }
     }
 
     public ItemStack getDisplayItem() {
@@ -23,6 +23,9 @@ public class CriteriaTypes {
         putType("search", SearchCriterion::loadFromConfig);
         putType("break", BlockBreakCriterion::loadFromConfig);
         putType("multiblockcraft", MultiBlockCraftCriterion::loadFromConfig);
+        putType("distance", DistanceCriterion::loadFromConfig);
+        putType("playtime", PlaytimeCriterion::loadFromConfig);
+        putType("location", LocationCriterion::loadFromConfig);
     }
 
     /**
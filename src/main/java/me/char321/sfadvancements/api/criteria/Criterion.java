@@ -120,7 +120,21 @@ public class Criterion {
      * @param p uuid of player to perform the criterion
      */
     public void perform(UUID p) {
-        SFAdvancements.getAdvManager().getProgress(p).doCriterion(this);
+        perform(p, 1);
+    }
+
+    /**
+     * utility method for doing this criterion
+     * increments the progress for that player of this criterion by the given amount
+     *
+     * @param p uuid of player to perform the criterion
+     * @param amount how much to increment the progress by
+     */
+    public void perform(UUID p, int amount) {
+        // only count matches that actually moved the progress
+        if (SFAdvancements.getAdvManager().getProgress(p).doCriterion(this, amount)) {
+            SFAdvancements.getStats().recordMatch(getClass());
+        }
     }
 
     /**
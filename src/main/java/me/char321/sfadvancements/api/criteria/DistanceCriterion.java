@@ -0,0 +1,45 @@
+package me.char321.sfadvancements.api.criteria;
+
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.ConfigurationSection;
+
+import javax.annotation.Nullable;
+
+/**
+ * this criterion is performed for every block a player travels <br>
+ * the count is the distance in blocks
+ */
+public class DistanceCriterion extends Criterion {
+    private final String world;
+
+    public static DistanceCriterion loadFromConfig(ConfigurationSection config) {
+        String id = config.getName();
+
+        int amount = config.getInt("amount");
+        if (amount == 0) {
+            amount = 1;
+        }
+
+        String name = config.getString("name");
+        if(name == null) {
+            name = id;
+        }
+
+        name = ChatColor.translateAlternateColorCodes('&', name);
+
+        return new DistanceCriterion(id, amount, name, config.getString("world"));
+    }
+
+    /**
+     * @param world the name of the world the distance has to be travelled in, or null for any world
+     */
+    public DistanceCriterion(String id, int amount, String name, @Nullable String world) {
+        super(id, amount, name);
+        this.world = world;
+    }
+
+    @Nullable
+    public String getWorld() {
+        return world;
+    }
+}
@@ -0,0 +1,135 @@
+package me.char321.sfadvancements.api.criteria;
+
+import me.char321.sfadvancements.SFAdvancements;
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.List;
+
+/**
+ * this criterion is performed when a player enters a region <br>
+ * the region is either a box, set with min and max, or a sphere, set with center and radius.
+ * in the config, the min and max blocks of a box are both inside it
+ */
+public class LocationCriterion extends Criterion {
+    private final String world;
+    private final boolean sphere;
+    private final double minX;
+    private final double minY;
+    private final double minZ;
+    private final double maxX;
+    private final double maxY;
+    private final double maxZ;
+    private final double radiusSquared;
+
+    public static LocationCriterion loadFromConfig(ConfigurationSection config) {
+        String id = config.getName();
+
+        int amount = config.getInt("amount");
+        if (amount == 0) {
+            amount = 1;
+        }
+
+        String name = config.getString("name");
+        if(name == null) {
+            name = id;
+        }
+
+        name = ChatColor.translateAlternateColorCodes('&', name);
+
+        String world = config.getString("world");
+        if (world == null) {
+            SFAdvancements.warn("world not provided for " + id);
+            return null;
+        }
+
+        if (config.contains("center")) {
+            List<Double> center = config.getDoubleList("center");
+            double radius = config.getDouble("radius");
+            if (center.size() != 3 || radius <= 0) {
+                SFAdvancements.warn("invalid center or radius for criterion " + id);
+                return null;
+            }
+            return sphere(id, amount, name, world, center.get(0), center.get(1), center.get(2), radius);
+        }
+
+        List<Double> min = config.getDoubleList("min");
+        List<Double> max = config.getDoubleList("max");
+        if (min.size() != 3 || max.size() != 3) {
+            SFAdvancements.warn("invalid min or max for criterion " + id);
+            return null;
+        }
+        // min and max are block coordinates, so the box extends to the far side of the max block
+        return box(id, amount, name, world,
+                Math.min(min.get(0), max.get(0)), Math.min(min.get(1), max.get(1)), Math.min(min.get(2), max.get(2)),
+                Math.max(min.get(0), max.get(0)) + 1, Math.max(min.get(1), max.get(1)) + 1, Math.max(min.get(2), max.get(2)) + 1);
+    }
+
+    public static LocationCriterion box(String id, int amount, String name, String world,
+                                        double x1, double y1, double z1, double x2, double y2, double z2) {
+        return new LocationCriterion(id, amount, name, world, false,
+                Math.min(x1, x2), Math.min(y1, y2), Math.min(z1, z2),
+                Math.max(x1, x2), Math.max(y1, y2), Math.max(z1, z2), 0);
+    }
+
+    public static LocationCriterion sphere(String id, int amount, String name, String world,
+                                           double x, double y, double z, double radius) {
+        return new LocationCriterion(id, amount, name, world, true,
+                x - radius, y - radius, z - radius,
+                x + radius, y + radius, z + radius, radius * radius);
+    }
+
+    private LocationCriterion(String id, int amount, String name, String world, boolean sphere,
+                              double minX, double minY, double minZ, double maxX, double maxY, double maxZ, double radiusSquared) {
+        super(id, amount, name);
+        this.world = world;
+        this.sphere = sphere;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.radiusSquared = radiusSquared;
+    }
+
+    /**
+     * @return whether the position is inside the region, ignoring the world
+     */
+    public boolean contains(double x, double y, double z) {
+        if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+            return false;
+        }
+        if (!sphere) {
+            return true;
+        }
+        double dx = x - (minX + maxX) / 2;
+        double dy = y - (minY + maxY) / 2;
+        double dz = z - (minZ + maxZ) / 2;
+        return dx * dx + dy * dy + dz * dz <= radiusSquared;
+    }
+
+    public String getWorld() {
+        return world;
+    }
+
+    public boolean isSphere() {
+        return sphere;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinZ() {
+        return minZ;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxZ() {
+        return maxZ;
+    }
+}
@@ -0,0 +1,33 @@
+package me.char321.sfadvancements.api.criteria;
+
+import org.bukkit.ChatColor;
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * this criterion is performed for every minute a player is online <br>
+ * the count is the playtime in minutes
+ */
+public class PlaytimeCriterion extends Criterion {
+
+    public static PlaytimeCriterion loadFromConfig(ConfigurationSection config) {
+        String id = config.getName();
+
+        int amount = config.getInt("amount");
+        if (amount == 0) {
+            amount = 1;
+        }
+
+        String name = config.getString("name");
+        if(name == null) {
+            name = id;
+        }
+
+        name = ChatColor.translateAlternateColorCodes('&', name);
+
+        return new PlaytimeCriterion(id, amount, name);
+    }
+
+    public PlaytimeCriterion(String id, int minutes, String name) {
+        super(id, minutes, name);
+    }
+}
@@ -0,0 +1,45 @@
+package me.char321.sfadvancements.api.reward;
+
+import me.char321.sfadvancements.SFAdvancements;
+import org.bukkit.entity.Player;
+
+/**
+ * a reward that runs a console command, with %p% replaced by the player's name <br>
+ * the command is split around %p% once when loaded, and dispatched through the rate limited reward queue
+ */
+public class CommandReward implements Reward {
+    private static final String PLAYER_PLACEHOLDER = "%p%";
+
+    private final String command;
+    private final String[] parts;
+
+    public CommandReward(String command) {
+        this.command = command;
+        this.parts = command.split(PLAYER_PLACEHOLDER, -1);
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * @param playerName the name of the player
+     * @return the command with the player name filled in
+     */
+    public String format(String playerName) {
+        if (parts.length == 1) {
+            return parts[0];
+        }
+        StringBuilder sb = new StringBuilder(command.length() + parts.length * playerName.length());
+        sb.append(parts[0]);
+        for (int i = 1; i < parts.length; i++) {
+            sb.append(playerName).append(parts[i]);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void give(Player p) {
+        SFAdvancements.getRewardTask().queue(format(p.getName()));
+    }
+}
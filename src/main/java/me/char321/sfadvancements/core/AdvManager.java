@@ -1,20 +1,49 @@
 package me.char321.sfadvancements.core;
 
+import me.char321.sfadvancements.SFAdvancements;
 import me.char321.sfadvancements.api.Advancement;
 import me.char321.sfadvancements.api.criteria.Criterion;
 import me.char321.sfadvancements.core.criteria.progress.PlayerProgress;
+import me.char321.sfadvancements.util.Utils;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.HoverEvent;
+import net.md_5.bungee.api.chat.TextComponent;
+import net.md_5.bungee.api.chat.hover.content.Text;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.logging.Level;
 
 /**
- * should really be named progress manager or something
+ * should really be named progress manager or something <br>
+ * players are removed from the cache a tick after they quit, once the completers added their last progress
  */
-public class AdvManager {
-    private final Map<UUID, PlayerProgress> playerMap = new HashMap<>();
+public class AdvManager implements Listener {
+    // read by the async autosave while the main thread adds players
+    private final Map<UUID, PlayerProgress> playerMap = new ConcurrentHashMap<>();
 
     public boolean isCompleted(Player player, Advancement advancement) {
         return isCompleted(player.getUniqueId(), advancement);
@@ -30,6 +59,11 @@ public class AdvManager {
     }
 
     public PlayerProgress getProgress(UUID player) {
+        PlayerProgress progress = playerMap.get(player);
+        SFAdvancements.getStats().recordCacheLookup(progress != null);
+        if (progress != null) {
+            return progress;
+        }
         return playerMap.computeIfAbsent(player, PlayerProgress::get);
     }
 
@@ -45,9 +79,230 @@ public class AdvManager {
         return playerMap;
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent e) {
+        UUID uuid = e.getPlayer().getUniqueId();
+        Utils.runLater(() -> {
+            // they might have joined again in the meantime
+            if (Bukkit.getPlayer(uuid) != null) {
+                return;
+            }
+            try {
+                unload(uuid);
+            } catch (IOException ex) {
+                SFAdvancements.logger().log(Level.SEVERE, ex, () -> "无法保存玩家 " + uuid + " 的进度");
+            }
+        }, 1L);
+    }
+
+    /**
+     * saves a cached player for the last time and removes them from the cache <br>
+     * the next lookup loads the player from disk again
+     *
+     * @param player the uuid of the player
+     * @throws IOException if the progress couldn't be saved, the player stays cached then
+     */
+    public void unload(UUID player) throws IOException {
+        PlayerProgress progress = playerMap.get(player);
+        if (progress == null) {
+            return;
+        }
+        progress.unload();
+        playerMap.remove(player, progress);
+    }
+
+    /**
+     * @return how many cached players have progress that wasn't saved yet
+     */
+    public int getDirtyCount() {
+        int count = 0;
+        for (PlayerProgress progress : playerMap.values()) {
+            if (progress.isDirty()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * grants advancements to many players in one pass <br>
+     * online players get one announcement, and the rewards and vanilla advancement of every newly completed advancement
+     * through the completion queue, in order with their other completions.
+     * offline players that aren't cached are loaded from and saved straight back to disk, without being cached
+     *
+     * @param players the players to grant the advancements to
+     * @param advancements the advancements to grant
+     * @return how many advancements were newly completed in total
+     */
+    public int grant(Collection<UUID> players, Collection<Advancement> advancements) {
+        int changed = 0;
+        for (UUID uuid : players) {
+            Player p = Bukkit.getPlayer(uuid);
+            List<Advancement> granted = editProgress(uuid, progress -> progress.grantAdvancements(advancements));
+            changed += granted.size();
+            if (p == null || granted.isEmpty()) {
+                continue;
+            }
+
+            // a single advancement is announced like any other completion
+            boolean bulk = granted.size() > 1;
+            if (bulk && SFAdvancements.getMainConfig().getConfiguration().getBoolean("announce-advancements", true)) {
+                broadcastBulk(p, granted);
+            }
+            for (Advancement adv : granted) {
+                SFAdvancements.getCompletionTask().queue(uuid, adv, !bulk);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * announces many advancements at once, with their names shown when hovering over the message
+     */
+    private static void broadcastBulk(Player p, List<Advancement> advancements) {
+        BaseComponent component = new TextComponent();
+        component.addExtra(p.getName() + "取得了 ");
+        List<String> names = new ArrayList<>(advancements.size());
+        for (Advancement adv : advancements) {
+            names.add(adv.getName());
+        }
+        BaseComponent sub = new TextComponent(advancements.size() + " 个进度");
+        sub.setHoverEvent(new HoverEvent(HoverEvent.Action.SHOW_TEXT, new Text(String.join("\n", names))));
+        component.addExtra(sub);
+        Bukkit.spigot().broadcast(component);
+    }
+
+    /**
+     * clears the progress of advancements for many players in one pass <br>
+     * online players have the revoked vanilla advancements revoked too.
+     * offline players that aren't cached are loaded from and saved straight back to disk, without being cached
+     *
+     * @param players the players to revoke the advancements from
+     * @param advancements the keys of the advancements to revoke
+     * @return how many advancements had their progress cleared in total
+     */
+    public int revoke(Collection<UUID> players, Collection<NamespacedKey> advancements) {
+        return revoke(players, progress -> progress.revokeAdvancements(advancements));
+    }
+
+    /**
+     * clears the progress of every completed advancement for many players in one pass,
+     * advancements that are only partly done keep their progress
+     *
+     * @param players the players to revoke the advancements from
+     * @return how many advancements had their progress cleared in total
+     * @see #revoke(Collection, Collection)
+     */
+    public int revokeCompleted(Collection<UUID> players) {
+        return revoke(players, progress -> progress.revokeAdvancements(progress.getCompletedAdvancements()));
+    }
+
+    private int revoke(Collection<UUID> players, Function<PlayerProgress, List<NamespacedKey>> revoke) {
+        int changed = 0;
+        for (UUID uuid : players) {
+            List<NamespacedKey> revoked = editProgress(uuid, revoke);
+            changed += revoked.size();
+            Player p = Bukkit.getPlayer(uuid);
+            if (p != null && SFAdvancements.getMainConfig().getBoolean("use-advancements-api")) {
+                for (NamespacedKey key : revoked) {
+                    SFAdvancements.getVanillaHook().revoke(p, key);
+                }
+            }
+        }
+        return changed;
+    }
+
+    private <T> List<T> editProgress(UUID uuid, Function<PlayerProgress, List<T>> edit) {
+        PlayerProgress cached = playerMap.get(uuid);
+        if (cached != null || Bukkit.getPlayer(uuid) != null) {
+            return edit.apply(getProgress(uuid));
+        }
+
+        PlayerProgress progress = PlayerProgress.get(uuid);
+        List<T> res = edit.apply(progress);
+        if (!res.isEmpty()) {
+            try {
+                progress.save();
+            } catch (IOException e) {
+                SFAdvancements.logger().log(Level.SEVERE, e, () -> "无法保存玩家 " + uuid + " 的进度");
+                return Collections.emptyList();
+            }
+        }
+        return res;
+    }
+
+    /**
+     * saves every cached player, continuing past players that fail to save
+     *
+     * @throws IOException if any player failed to save, with the other failures as suppressed exceptions
+     */
     public void save() throws IOException {
+        // anything journaled before this point is covered by the save
+        long segment = SFAdvancements.getProgressJournal().rotate();
+        IOException failure = null;
         for (Map.Entry<UUID, PlayerProgress> entry : playerMap.entrySet()) {
-            entry.getValue().save(); //someone please tell me if this can cause a concurrentmodificationexception
+            try {
+                entry.getValue().save();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = new IOException("无法保存玩家 " + entry.getKey() + " 的进度", e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        SFAdvancements.getProgressJournal().truncate(segment);
+    }
+
+    /**
+     * saves every cached player in parallel, giving up on players that aren't saved before the deadline <br>
+     * used on shutdown. the journal is only truncated if every player was saved,
+     * so the progress of failed players can still be recovered from it on the next start
+     *
+     * @param threads the number of threads to save with
+     * @param timeoutMillis how long to wait for all saves to finish
+     * @return the players whose progress failed to save or wasn't saved in time
+     */
+    public Set<UUID> flush(int threads, long timeoutMillis) {
+        long segment = SFAdvancements.getProgressJournal().rotate();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "SFAdvancements-Flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<UUID, Future<?>> futures = new LinkedHashMap<>();
+        for (Map.Entry<UUID, PlayerProgress> entry : playerMap.entrySet()) {
+            PlayerProgress progress = entry.getValue();
+            futures.put(entry.getKey(), pool.submit(() -> {
+                progress.save();
+                return null;
+            }));
+        }
+        pool.shutdown();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Set<UUID> failed = new LinkedHashSet<>();
+        for (Map.Entry<UUID, Future<?>> entry : futures.entrySet()) {
+            try {
+                entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                failed.add(entry.getKey());
+                SFAdvancements.logger().log(Level.SEVERE, e.getCause(), () -> "无法保存玩家 " + entry.getKey() + " 的进度");
+            } catch (TimeoutException e) {
+                failed.add(entry.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.add(entry.getKey());
+            }
+        }
+        pool.shutdownNow();
+
+        if (failed.isEmpty()) {
+            SFAdvancements.getProgressJournal().truncate(segment);
         }
+        return failed;
     }
 }
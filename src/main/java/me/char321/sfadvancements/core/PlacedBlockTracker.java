@@ -0,0 +1,335 @@
+package me.char321.sfadvancements.core;
+
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.util.Utils;
+import org.bukkit.Chunk;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.FallingBlock;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * remembers which blocks were placed by players, so break criteria can't be farmed by placing and breaking the same block <br>
+ * the positions are stored per chunk in the chunk's persistent data as an int array,
+ * read the first time a chunk is needed and written back when the chunk unloads, the world saves or the plugin disables. <br>
+ * in memory each chunk is an open addressing int set, so checking a block is a map lookup and a probe. only used on the main thread. <br>
+ * entries follow blocks moved by pistons and falling blocks, and are cleared when blocks are broken or blown up
+ */
+public class PlacedBlockTracker implements Listener {
+    private final NamespacedKey key = Utils.keyOf("placed_blocks");
+    private final Map<UUID, Map<Long, ChunkBlocks>> worlds = new HashMap<>();
+    private boolean enabled;
+
+    public PlacedBlockTracker() {
+        reload();
+        Utils.listen(this);
+    }
+
+    public void reload() {
+        enabled = SFAdvancements.getMainConfig().getConfiguration().getBoolean("ignore-placed-blocks", true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param block the block
+     * @return whether the block was placed by a player
+     */
+    public boolean isPlaced(Block block) {
+        return enabled && getChunk(block).contains(pack(block));
+    }
+
+    /**
+     * marks a block as placed by a player
+     *
+     * @param block the block
+     */
+    public void add(Block block) {
+        if (enabled) {
+            getChunk(block).add(pack(block));
+        }
+    }
+
+    // runs after the break criteria, which need to see the block as placed
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent e) {
+        if (enabled) {
+            getChunk(e.getBlock()).remove(pack(e.getBlock()));
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent e) {
+        clear(e.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent e) {
+        clear(e.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent e) {
+        move(e.getBlocks(), e.getDirection());
+    }
+
+    // the direction is the one the blocks move in, for retracting too
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent e) {
+        move(e.getBlocks(), e.getDirection());
+    }
+
+    /**
+     * a placed sand or gravel block that starts falling takes the mark with it, and gives it to the block it lands as
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onFallingBlock(EntityChangeBlockEvent e) {
+        if (!enabled || !(e.getEntity() instanceof FallingBlock)) {
+            return;
+        }
+        PersistentDataContainer pdc = e.getEntity().getPersistentDataContainer();
+        if (e.getTo() == Material.AIR) {
+            ChunkBlocks blocks = getChunk(e.getBlock());
+            if (blocks.contains(pack(e.getBlock()))) {
+                blocks.remove(pack(e.getBlock()));
+                pdc.set(key, PersistentDataType.BYTE, (byte) 1);
+            }
+        } else if (pdc.has(key, PersistentDataType.BYTE)) {
+            add(e.getBlock());
+        }
+    }
+
+    private void clear(List<Block> blocks) {
+        if (!enabled) {
+            return;
+        }
+        for (Block block : blocks) {
+            getChunk(block).remove(pack(block));
+        }
+    }
+
+    private void move(List<Block> blocks, BlockFace direction) {
+        if (!enabled || blocks.isEmpty()) {
+            return;
+        }
+        // the blocks can move into each other's positions, so all are removed before any is added
+        List<Block> moved = new ArrayList<>();
+        for (Block block : blocks) {
+            ChunkBlocks chunk = getChunk(block);
+            if (chunk.contains(pack(block))) {
+                chunk.remove(pack(block));
+                moved.add(block.getRelative(direction));
+            }
+        }
+        for (Block block : moved) {
+            getChunk(block).add(pack(block));
+        }
+    }
+
+    @EventHandler
+    public void onChunkUnload(ChunkUnloadEvent e) {
+        Map<Long, ChunkBlocks> chunks = worlds.get(e.getWorld().getUID());
+        if (chunks == null) {
+            return;
+        }
+        ChunkBlocks blocks = chunks.remove(chunkKey(e.getChunk().getX(), e.getChunk().getZ()));
+        if (blocks != null) {
+            write(e.getChunk(), blocks);
+        }
+    }
+
+    @EventHandler
+    public void onWorldSave(WorldSaveEvent e) {
+        save(e.getWorld());
+    }
+
+    /**
+     * writes every changed chunk back to its persistent data
+     */
+    public void saveAll() {
+        for (World world : SFAdvancements.instance().getServer().getWorlds()) {
+            save(world);
+        }
+    }
+
+    private void save(World world) {
+        Map<Long, ChunkBlocks> chunks = worlds.get(world.getUID());
+        if (chunks == null) {
+            return;
+        }
+        for (Map.Entry<Long, ChunkBlocks> entry : chunks.entrySet()) {
+            int x = (int) (long) entry.getKey();
+            int z = (int) (entry.getKey() >> 32);
+            if (entry.getValue().dirty && world.isChunkLoaded(x, z)) {
+                write(world.getChunkAt(x, z), entry.getValue());
+            }
+        }
+    }
+
+    private void write(Chunk chunk, ChunkBlocks blocks) {
+        if (!blocks.dirty) {
+            return;
+        }
+        PersistentDataContainer pdc = chunk.getPersistentDataContainer();
+        if (blocks.size == 0) {
+            pdc.remove(key);
+        } else {
+            pdc.set(key, PersistentDataType.INTEGER_ARRAY, blocks.toArray());
+        }
+        blocks.dirty = false;
+    }
+
+    private ChunkBlocks getChunk(Block block) {
+        Map<Long, ChunkBlocks> chunks = worlds.computeIfAbsent(block.getWorld().getUID(), k -> new HashMap<>());
+        long chunkKey = chunkKey(block.getX() >> 4, block.getZ() >> 4);
+        ChunkBlocks blocks = chunks.get(chunkKey);
+        if (blocks == null) {
+            blocks = new ChunkBlocks(block.getChunk().getPersistentDataContainer().get(key, PersistentDataType.INTEGER_ARRAY));
+            chunks.put(chunkKey, blocks);
+        }
+        return blocks;
+    }
+
+    private static long chunkKey(int x, int z) {
+        return (x & 0xFFFFFFFFL) | ((long) z << 32);
+    }
+
+    /**
+     * the position of a block inside its chunk, 4 bits each for x and z and the rest for the height above the bottom of the world
+     */
+    private static int pack(Block block) {
+        return (block.getY() - block.getWorld().getMinHeight()) << 8 | (block.getZ() & 15) << 4 | (block.getX() & 15);
+    }
+
+    /**
+     * an int set with linear probing. positions are stored plus one, so 0 can mark empty slots
+     */
+    static class ChunkBlocks {
+        private int[] table;
+        private int size = 0;
+        private boolean dirty = false;
+
+        ChunkBlocks(int[] stored) {
+            int capacity = 8;
+            int count = stored == null ? 0 : stored.length;
+            while (capacity < count * 2) {
+                capacity <<= 1;
+            }
+            table = new int[capacity];
+            if (stored != null) {
+                for (int value : stored) {
+                    insert(value + 1);
+                }
+            }
+        }
+
+        boolean contains(int value) {
+            if (size == 0) {
+                return false;
+            }
+            int stored = value + 1;
+            int mask = table.length - 1;
+            for (int i = mix(stored) & mask; table[i] != 0; i = (i + 1) & mask) {
+                if (table[i] == stored) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(int value) {
+            if (insert(value + 1)) {
+                dirty = true;
+                if (size * 2 > table.length) {
+                    int[] old = table;
+                    table = new int[old.length << 1];
+                    size = 0;
+                    for (int stored : old) {
+                        if (stored != 0) {
+                            insert(stored);
+                        }
+                    }
+                }
+            }
+        }
+
+        void remove(int value) {
+            if (size == 0) {
+                return;
+            }
+            int stored = value + 1;
+            int mask = table.length - 1;
+            int i = mix(stored) & mask;
+            while (table[i] != stored) {
+                if (table[i] == 0) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = 0;
+            size--;
+            dirty = true;
+
+            // move later entries of the same run back, so lookups don't stop at the hole
+            for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+                int entry = table[j];
+                table[j] = 0;
+                size--;
+                insert(entry);
+            }
+        }
+
+        int[] toArray() {
+            int[] res = new int[size];
+            int n = 0;
+            for (int stored : table) {
+                if (stored != 0) {
+                    res[n++] = stored - 1;
+                }
+            }
+            return res;
+        }
+
+        private boolean insert(int stored) {
+            int mask = table.length - 1;
+            int i = mix(stored) & mask;
+            while (table[i] != 0) {
+                if (table[i] == stored) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = stored;
+            size++;
+            return true;
+        }
+
+        private static int mix(int value) {
+            int h = value * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package me.char321.sfadvancements.core.command;
+
+import me.char321.sfadvancements.core.tasks.CompactProgressTask;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+
+public class CompactCommand implements SubCommand {
+    @Override
+    public boolean onExecute(CommandSender sender, Command command, String label, String[] args) {
+        if (!new CompactProgressTask(sender).start()) {
+            sender.sendMessage(ChatColor.RED + "已有其他任务正在处理进度文件, 请稍后再试");
+            return false;
+        }
+        sender.sendMessage("正在压缩所有离线玩家的进度文件...");
+        return true;
+    }
+
+    @Override
+    public @Nonnull String getCommandName() {
+        return "compact";
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        return Collections.emptyList();
+    }
+}
@@ -2,9 +2,11 @@ package me.char321.sfadvancements.core.command;
 
 import me.char321.sfadvancements.SFAdvancements;
 import me.char321.sfadvancements.api.Advancement;
+import me.char321.sfadvancements.util.Utils;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.NamespacedKey;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -22,17 +24,15 @@ public class GrantCommand implements SubCommand {
             return false;
         }
 
-        Player p = Bukkit.getPlayer(args[1]);
+        OfflinePlayer p = Utils.findPlayer(args[1]);
         if (p == null) {
             sender.sendMessage(ChatColor.RED + "无法找到玩家 " + args[1]);
             return false;
         }
 
         if (args[2].equals("*") || args[2].equals("all")) {
-            for (Advancement adv : SFAdvancements.getRegistry().getAdvancements().values()) {
-                adv.complete(p);
-            }
-            sender.sendMessage("已为玩家解锁所有进度！");
+            int granted = SFAdvancements.getAdvManager().grant(List.of(p.getUniqueId()), SFAdvancements.getRegistry().getAdvancements().values());
+            sender.sendMessage("已为玩家解锁所有进度！(" + granted + " 个)");
             return true;
         }
 
@@ -42,7 +42,7 @@ public class GrantCommand implements SubCommand {
             return false;
         }
 
-        adv.complete(p);
+        SFAdvancements.getAdvManager().grant(List.of(p.getUniqueId()), List.of(adv));
         sender.sendMessage("已为玩家 " + p.getName() + " 解锁进度 " + adv.getKey());
         return true;
     }
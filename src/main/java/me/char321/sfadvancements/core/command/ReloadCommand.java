@@ -32,9 +32,14 @@ public class ReloadCommand implements SubCommand {
             }
         }
 
-        SFAdvancements.instance().reload();
-
-        sender.sendMessage("已成功重载配置！");
+        SFAdvancements.instance().reload().whenComplete((result, e) -> {
+            if (e != null) {
+                sender.sendMessage(ChatColor.RED + "重载配置时出现错误，检查控制台获得更多信息。");
+                SFAdvancements.logger().log(Level.SEVERE, e, () -> "重载配置时出现错误");
+            } else {
+                sender.sendMessage("已成功重载配置！");
+            }
+        });
         return true;
     }
 
@@ -0,0 +1,57 @@
+package me.char321.sfadvancements.core.command;
+
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.Advancement;
+import me.char321.sfadvancements.core.tasks.ResetAdvancementTask;
+import org.bukkit.ChatColor;
+import org.bukkit.NamespacedKey;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ResetCommand implements SubCommand {
+    @Override
+    public boolean onExecute(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(ChatColor.RED + "用法: /" + label + " reset <进度>");
+            return false;
+        }
+
+        NamespacedKey key = NamespacedKey.fromString(args[1]);
+        if (key == null) {
+            sender.sendMessage(ChatColor.RED + "无效的进度 " + args[1]);
+            return false;
+        }
+
+        if (!new ResetAdvancementTask(sender, key).start()) {
+            sender.sendMessage(ChatColor.RED + "已有其他任务正在处理进度文件, 请稍后再试");
+            return false;
+        }
+        sender.sendMessage("正在为所有玩家重置进度 " + key + "...");
+        return true;
+    }
+
+    @Override
+    public @Nonnull String getCommandName() {
+        return "reset";
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        if (args.length == 2) {
+            List<String> res = new ArrayList<>();
+            for (Advancement adv : SFAdvancements.getRegistry().getAdvancements().values()) {
+                String s = adv.getKey().toString();
+                if (s.contains(args[1])) {
+                    res.add(s);
+                }
+            }
+            return res;
+        }
+        return Collections.emptyList();
+    }
+}
@@ -1,10 +1,11 @@
 package me.char321.sfadvancements.core.command;
 
 import me.char321.sfadvancements.SFAdvancements;
-import me.char321.sfadvancements.core.criteria.progress.PlayerProgress;
+import me.char321.sfadvancements.util.Utils;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.NamespacedKey;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -22,22 +23,20 @@ public class RevokeCommand implements SubCommand {
             return false;
         }
 
-        Player p = Bukkit.getPlayer(args[1]);
+        OfflinePlayer p = Utils.findPlayer(args[1]);
         if (p == null) {
             sender.sendMessage(ChatColor.RED + "无法找到玩家 " + args[1]);
             return false;
         }
 
-        PlayerProgress progress = SFAdvancements.getAdvManager().getProgress(p);
         if (args[2].equals("*") || args[2].equals("all")) {
-            for (NamespacedKey adv : progress.getCompletedAdvancements()) {
-                progress.revokeAdvancement(adv);
-            }
+            SFAdvancements.getAdvManager().revokeCompleted(List.of(p.getUniqueId()));
             sender.sendMessage("已清除玩家的所有进度!");
             return true;
         }
 
-        if (!progress.revokeAdvancement(NamespacedKey.fromString(args[2]))) {
+        NamespacedKey key = NamespacedKey.fromString(args[2]);
+        if (key == null || SFAdvancements.getAdvManager().revoke(List.of(p.getUniqueId()), List.of(key)) == 0) {
             sender.sendMessage(ChatColor.RED + "无法清除玩家 " + args[1] + " 的进度 " + args[2]);
             return false;
         } else {
@@ -20,6 +20,9 @@ public class SFACommand implements CommandExecutor {
         subcommands.add(new DumpItemCommand());
         subcommands.add(new ReloadCommand());
         subcommands.add(new ImportCommand());
+        subcommands.add(new ResetCommand());
+        subcommands.add(new CompactCommand());
+        subcommands.add(new StatsCommand());
 
         plugin.getCommand("sfadvancements").setTabCompleter(new SFATabCompleter(this));
     }
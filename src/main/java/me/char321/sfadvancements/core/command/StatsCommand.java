@@ -0,0 +1,84 @@
+package me.char321.sfadvancements.core.command;
+
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.criteria.Criterion;
+import me.char321.sfadvancements.core.metrics.CompleterStats;
+import me.char321.sfadvancements.core.metrics.Histogram;
+import me.char321.sfadvancements.core.metrics.Stats;
+import me.char321.sfadvancements.core.tasks.AutoSaveTask;
+import me.char321.sfadvancements.core.tasks.RewardTask;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+public class StatsCommand implements SubCommand {
+    @Override
+    public boolean onExecute(CommandSender sender, Command command, String label, String[] args) {
+        Stats stats = SFAdvancements.getStats();
+        sender.sendMessage(ChatColor.GOLD + "SFAdvancements 统计");
+
+        sender.sendMessage(ChatColor.YELLOW + "完成条件 (事件 / 触发 / 限流 / p50 / p99 / 最大):");
+        List<Map.Entry<Class<? extends Criterion>, CompleterStats>> completers = new ArrayList<>(stats.getCompleters().entrySet());
+        // slowest first, those are the ones worth looking at
+        completers.sort(Comparator.comparingDouble((Map.Entry<Class<? extends Criterion>, CompleterStats> e) ->
+                e.getValue().getHandlerTime().getMean() * e.getValue().getEvents()).reversed());
+        for (Map.Entry<Class<? extends Criterion>, CompleterStats> entry : completers) {
+            CompleterStats completer = entry.getValue();
+            Histogram time = completer.getHandlerTime();
+            sender.sendMessage(ChatColor.GRAY + "  " + entry.getKey().getSimpleName() + ": " + ChatColor.WHITE
+                    + completer.getEvents() + " / " + completer.getMatched() + " / " + completer.getSuppressed() + " / "
+                    + formatNanos(time.getPercentile(0.5)) + " / " + formatNanos(time.getPercentile(0.99)) + " / " + formatNanos(time.getMax()));
+        }
+
+        sender.sendMessage(ChatColor.YELLOW + "进度更新: " + ChatColor.WHITE + stats.getProgressUpdates()
+                + ChatColor.GRAY + ", 缓存玩家: " + ChatColor.WHITE + SFAdvancements.getAdvManager().getPlayerMap().size());
+        sendHistogram(sender, "读取进度", stats.getProgressLoad());
+        sendHistogram(sender, "保存进度", stats.getProgressSave());
+        sendHistogram(sender, "刷新界面", stats.getGuiRefresh());
+        sendHistogram(sender, "同步原版进度", stats.getVanillaSync());
+
+        AutoSaveTask autoSave = SFAdvancements.getAutoSaveTask();
+        sender.sendMessage(ChatColor.YELLOW + "自动保存: " + ChatColor.WHITE + autoSave.getSlicesWritten() + " 批, "
+                + autoSave.getPlayersWritten() + " 个玩家" + ChatColor.GRAY + ", 每批平均 "
+                + String.format("%.2fms", autoSave.getAverageSliceMillis()) + ", 最大 " + String.format("%.2fms", autoSave.getMaxSliceMillis()));
+
+        RewardTask rewards = SFAdvancements.getRewardTask();
+        sender.sendMessage(ChatColor.YELLOW + "奖励指令: " + ChatColor.WHITE + rewards.getDispatched() + " 条"
+                + ChatColor.GRAY + ", 队列中 " + rewards.getQueueDepth() + ", 溢出 " + rewards.getOverflowed()
+                + ", 平均等待 " + String.format("%.2fms", rewards.getAverageLatencyMillis())
+                + ", 最长等待 " + String.format("%.2fms", rewards.getMaxLatencyMillis()));
+        sender.sendMessage(ChatColor.YELLOW + "待处理的进度完成: " + ChatColor.WHITE + SFAdvancements.getCompletionTask().size());
+        return true;
+    }
+
+    private static void sendHistogram(CommandSender sender, String name, Histogram histogram) {
+        sender.sendMessage(ChatColor.YELLOW + name + ": " + ChatColor.WHITE + histogram.getCount() + " 次" + ChatColor.GRAY
+                + ", p50 " + formatNanos(histogram.getPercentile(0.5)) + ", p99 " + formatNanos(histogram.getPercentile(0.99))
+                + ", 最大 " + formatNanos(histogram.getMax()));
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000_000) {
+            return String.format("%.1fμs", nanos / 1e3);
+        }
+        return String.format("%.2fms", nanos / 1e6);
+    }
+
+    @Nonnull
+    @Override
+    public String getCommandName() {
+        return "stats";
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        return Collections.emptyList();
+    }
+}
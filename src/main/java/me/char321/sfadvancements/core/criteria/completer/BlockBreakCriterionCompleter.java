@@ -1,14 +1,17 @@
 package me.char321.sfadvancements.core.criteria.completer;
 
 import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
+import me.char321.sfadvancements.SFAdvancements;
 import me.char321.sfadvancements.api.criteria.BlockBreakCriterion;
 import me.char321.sfadvancements.api.criteria.Criterion;
 import me.char321.sfadvancements.util.Utils;
 import me.mrCookieSlime.Slimefun.api.BlockStorage;
 import org.bukkit.Material;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
 
 import java.util.ArrayList;
 import java.util.EnumMap;
@@ -16,6 +19,7 @@ import java.util.List;
 
 public class BlockBreakCriterionCompleter implements CriterionCompleter, Listener {
     EnumMap<Material, List<BlockBreakCriterion>> criteria = new EnumMap<>(Material.class);
+    private final RateLimiter limiter = new RateLimiter(BlockBreakCriterion.class, "block-break", 20, 40);
 
     public BlockBreakCriterionCompleter() {
         Utils.listen(this);
@@ -23,20 +27,41 @@ public class BlockBreakCriterionCompleter implements CriterionCompleter, Listene
 
     @EventHandler
     public void onBlockBreak(BlockBreakEvent e) {
+        long start = startTiming();
+        try {
+            performCriteria(e);
+        } finally {
+            stopTiming(start);
+        }
+    }
+
+    private void performCriteria(BlockBreakEvent e) {
         List<BlockBreakCriterion> criteria1 = criteria.get(e.getBlock().getType());
-        if (criteria1 == null) {
+        if (criteria1 == null || !limiter.tryAcquire(e.getPlayer())) {
             return;
         }
+        // slimefun blocks are always placed by someone, so only vanilla criteria skip placed blocks
+        boolean placed = SFAdvancements.getPlacedBlocks().isPlaced(e.getBlock());
         for (BlockBreakCriterion criterion : criteria1) {
             SlimefunItem sfitem = SlimefunItem.getByItem(criterion.getItem());
             if (sfitem == null) {
-                criterion.perform(e.getPlayer());
+                if (!placed) {
+                    criterion.perform(e.getPlayer());
+                }
             } else if (sfitem.equals(BlockStorage.check(e.getBlock()))) {
                 criterion.perform(e.getPlayer());
             }
         }
     }
 
+    // only blocks that some criterion could count are tracked
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent e) {
+        if (criteria.containsKey(e.getBlock().getType())) {
+            SFAdvancements.getPlacedBlocks().add(e.getBlock());
+        }
+    }
+
     @Override
     public void register(Criterion criterion) {
         if (!(getCriterionClass().isInstance(criterion))) {
@@ -55,5 +80,6 @@ public class BlockBreakCriterionCompleter implements CriterionCompleter, Listene
     @Override
     public void reload() {
         criteria.clear();
+        limiter.reload();
     }
 }
@@ -26,6 +26,15 @@ public class ConsumeCriterionCompleter implements CriterionCompleter, Listener {
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onConsume(PlayerItemConsumeEvent e) {
+        long start = startTiming();
+        try {
+            performCriteria(e);
+        } finally {
+            stopTiming(start);
+        }
+    }
+
+    private void performCriteria(PlayerItemConsumeEvent e) {
         ItemStack consumed = e.getItem();
         Set<ConsumeCriterion> allCriteria = criteria.get(consumed.getType());
         if (allCriteria == null) {
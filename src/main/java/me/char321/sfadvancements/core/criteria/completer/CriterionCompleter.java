@@ -2,6 +2,7 @@ package me.char321.sfadvancements.core.criteria.completer;
 
 import me.char321.sfadvancements.SFAdvancements;
 import me.char321.sfadvancements.api.criteria.Criterion;
+import org.bukkit.entity.Player;
 
 public interface CriterionCompleter {
     void register(Criterion criterion);
@@ -17,4 +18,32 @@ public interface CriterionCompleter {
      * typically this is done by clearing the collection/map that held the criteria
      */
     void reload();
+
+    /**
+     * adds any progress the completer keeps track of lazily to the player's progress,
+     * called right before the progress is shown to the player
+     *
+     * @param player the player
+     */
+    default void flush(Player player) {
+
+    }
+
+    /**
+     * starts timing an event handler, pass the result to {@link #stopTiming(long)} once the handler is done
+     *
+     * @return the start time
+     */
+    default long startTiming() {
+        return System.nanoTime();
+    }
+
+    /**
+     * records how long an event handler took in the stats
+     *
+     * @param start the start time from {@link #startTiming()}
+     */
+    default void stopTiming(long start) {
+        SFAdvancements.getStats().recordEvent(getCriterionClass(), start);
+    }
 }
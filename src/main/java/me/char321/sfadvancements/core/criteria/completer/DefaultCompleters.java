@@ -18,6 +18,9 @@ public class DefaultCompleters {
         new MobKillCriterionCompleter().register();
         new SearchCriterionCompleter().register();
         new BlockBreakCriterionCompleter().register();
+        new DistanceCriterionCompleter().register();
+        new PlaytimeCriterionCompleter().register();
+        new LocationCriterionCompleter().register();
 
         if (SFAdvancements.instance().isMultiBlockCraftEvent()) {
             new MultiBlockCraftCriterionCompleter().register();
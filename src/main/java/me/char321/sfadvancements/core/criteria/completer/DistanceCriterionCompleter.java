@@ -0,0 +1,194 @@
+package me.char321.sfadvancements.core.criteria.completer;
+
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.criteria.Criterion;
+import me.char321.sfadvancements.api.criteria.DistanceCriterion;
+import me.char321.sfadvancements.util.Utils;
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * samples the position of every online player every few ticks instead of listening to movement,
+ * so the cost depends on the number of players and not on how much they move. <br>
+ * the distance between samples is added up per player, and the whole blocks are added to the progress in one increment
+ * once distance-flush-blocks are reached, when the player changes worlds or quits, and when the progress is shown.
+ * samples across teleports, respawns and world changes, or faster than distance-max-speed, are dropped
+ */
+public class DistanceCriterionCompleter implements CriterionCompleter, Listener {
+    private final List<DistanceCriterion> criteria = new ArrayList<>();
+    private final Map<UUID, Tracker> trackers = new HashMap<>();
+    private BukkitTask task;
+    private int sampleTicks;
+    private double maxSpeed;
+    private int flushBlocks;
+
+    public DistanceCriterionCompleter() {
+        Utils.listen(this);
+        loadConfig();
+    }
+
+    private void loadConfig() {
+        FileConfiguration config = SFAdvancements.getMainConfig().getConfiguration();
+        int ticks = Math.max(1, config.getInt("distance-sample-ticks", 20));
+        maxSpeed = config.getDouble("distance-max-speed", 100);
+        flushBlocks = Math.max(1, config.getInt("distance-flush-blocks", 100));
+        if (task == null || ticks != sampleTicks) {
+            if (task != null) {
+                task.cancel();
+            }
+            sampleTicks = ticks;
+            task = Bukkit.getScheduler().runTaskTimer(SFAdvancements.instance(), this::sample, sampleTicks, sampleTicks);
+        }
+    }
+
+    private void sample() {
+        if (criteria.isEmpty()) {
+            return;
+        }
+        long start = startTiming();
+        try {
+            samplePlayers();
+        } finally {
+            stopTiming(start);
+        }
+    }
+
+    private void samplePlayers() {
+        double maxDistance = maxSpeed * sampleTicks / 20;
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            Tracker tracker = trackers.computeIfAbsent(player.getUniqueId(), k -> new Tracker());
+            Location location = player.getLocation();
+            World world = location.getWorld();
+            double x = location.getX();
+            double y = location.getY();
+            double z = location.getZ();
+
+            if (tracker.world != world) {
+                // the blocks so far count for the world they were travelled in
+                flush(player.getUniqueId(), tracker);
+                tracker.valid = false;
+            }
+            if (tracker.valid && !player.isFlying() && player.getGameMode() != GameMode.SPECTATOR) {
+                double dx = x - tracker.x;
+                double dy = y - tracker.y;
+                double dz = z - tracker.z;
+                double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                if (distance <= maxDistance) {
+                    tracker.fraction += distance;
+                }
+            }
+            tracker.world = world;
+            tracker.valid = true;
+            tracker.x = x;
+            tracker.y = y;
+            tracker.z = z;
+
+            if (tracker.fraction >= 1) {
+                int blocks = (int) tracker.fraction;
+                tracker.fraction -= blocks;
+                tracker.blocks += blocks;
+                if (tracker.blocks >= flushBlocks) {
+                    flush(player.getUniqueId(), tracker);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void flush(Player player) {
+        Tracker tracker = trackers.get(player.getUniqueId());
+        if (tracker != null) {
+            flush(player.getUniqueId(), tracker);
+        }
+    }
+
+    private void flush(UUID uuid, Tracker tracker) {
+        if (tracker.blocks <= 0 || tracker.world == null) {
+            return;
+        }
+        String world = tracker.world.getName();
+        for (DistanceCriterion criterion : criteria) {
+            if (criterion.getWorld() == null || criterion.getWorld().equals(world)) {
+                criterion.perform(uuid, tracker.blocks);
+            }
+        }
+        tracker.blocks = 0;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTeleport(PlayerTeleportEvent e) {
+        reset(e.getPlayer());
+    }
+
+    @EventHandler
+    public void onRespawn(PlayerRespawnEvent e) {
+        reset(e.getPlayer());
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent e) {
+        Tracker tracker = trackers.remove(e.getPlayer().getUniqueId());
+        if (tracker != null) {
+            flush(e.getPlayer().getUniqueId(), tracker);
+        }
+    }
+
+    private void reset(Player player) {
+        Tracker tracker = trackers.get(player.getUniqueId());
+        if (tracker != null) {
+            // the next sample only records the new position
+            tracker.valid = false;
+        }
+    }
+
+    @Override
+    public void register(Criterion criterion) {
+        if (!(getCriterionClass().isInstance(criterion))) {
+            throw new IllegalArgumentException("criterion must be a " + getCriterionClass().getName());
+        }
+
+        criteria.add((DistanceCriterion) criterion);
+    }
+
+    @Override
+    public Class<? extends Criterion> getCriterionClass() {
+        return DistanceCriterion.class;
+    }
+
+    @Override
+    public void reload() {
+        criteria.clear();
+        loadConfig();
+    }
+
+    private static class Tracker {
+        // the world of the last sample, which the unflushed blocks were travelled in
+        World world;
+        // false when the next sample shouldn't be compared to the last one
+        boolean valid;
+        double x;
+        double y;
+        double z;
+        // part of a block travelled that wasn't counted yet
+        double fraction;
+        // whole blocks travelled that weren't added to the progress yet
+        int blocks;
+    }
+}
@@ -19,6 +19,7 @@ import java.util.Set;
 
 public class InteractCriterionCompleter implements Listener, CriterionCompleter {
     private final Map<Material, Set<InteractCriterion>> criteria = new EnumMap<>(Material.class);
+    private final RateLimiter limiter = new RateLimiter(InteractCriterion.class, "interact", 10, 20);
 
     public InteractCriterionCompleter() {
         Bukkit.getPluginManager().registerEvents(this, SFAdvancements.instance());
@@ -26,9 +27,18 @@ public class InteractCriterionCompleter implements Listener, CriterionCompleter
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onInteract(PlayerRightClickEvent e) {
+        long start = startTiming();
+        try {
+            performCriteria(e);
+        } finally {
+            stopTiming(start);
+        }
+    }
+
+    private void performCriteria(PlayerRightClickEvent e) {
         ItemStack clicked = e.getItem();
         Set<InteractCriterion> allCriteria = criteria.get(clicked.getType());
-        if (allCriteria == null) {
+        if (allCriteria == null || !limiter.tryAcquire(e.getPlayer())) {
             return;
         }
 
@@ -58,5 +68,6 @@ public class InteractCriterionCompleter implements Listener, CriterionCompleter
     @Override
     public void reload() {
         criteria.clear();
+        limiter.reload();
     }
 }
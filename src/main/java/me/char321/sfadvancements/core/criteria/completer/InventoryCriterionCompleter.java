@@ -49,6 +49,15 @@ public class InventoryCriterionCompleter implements CriterionCompleter, Listener
     }
 
     public void onInventory1(Player p) {
+        long start = startTiming();
+        try {
+            checkInventory(p);
+        } finally {
+            stopTiming(start);
+        }
+    }
+
+    private void checkInventory(Player p) {
         Inventory inv = p.getInventory();
         Map<ItemStack, Integer> contents = Utils.getContents(inv);
 
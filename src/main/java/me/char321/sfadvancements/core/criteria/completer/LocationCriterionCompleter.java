@@ -0,0 +1,137 @@
+package me.char321.sfadvancements.core.criteria.completer;
+
+import me.char321.sfadvancements.api.criteria.Criterion;
+import me.char321.sfadvancements.api.criteria.LocationCriterion;
+import me.char321.sfadvancements.util.Utils;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * performs location criteria when a player enters their region <br>
+ * regions are indexed per world by the chunks they overlap, so a move only checks the regions in the chunk the player moves into.
+ * regions covering more than {@value #MAX_INDEXED_CHUNKS} chunks are checked on every move in their world instead.
+ * moves within the same block are ignored, and joining players are checked as if they came from outside
+ */
+public class LocationCriterionCompleter implements CriterionCompleter, Listener {
+    private static final int MAX_INDEXED_CHUNKS = 1024;
+
+    private final Map<String, WorldIndex> worlds = new HashMap<>();
+
+    public LocationCriterionCompleter() {
+        Utils.listen(this);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMove(PlayerMoveEvent e) {
+        if (worlds.isEmpty()) {
+            return;
+        }
+        Location from = e.getFrom();
+        Location to = e.getTo();
+        if (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY() && from.getBlockZ() == to.getBlockZ()) {
+            return;
+        }
+        check(e.getPlayer(), from, to);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTeleport(PlayerTeleportEvent e) {
+        if (!worlds.isEmpty()) {
+            check(e.getPlayer(), e.getFrom(), e.getTo());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent e) {
+        if (!worlds.isEmpty()) {
+            // a joining player comes from outside every region
+            check(e.getPlayer(), null, e.getPlayer().getLocation());
+        }
+    }
+
+    private void check(Player player, @Nullable Location from, Location to) {
+        WorldIndex index = to.getWorld() == null ? null : worlds.get(to.getWorld().getName());
+        if (index == null) {
+            return;
+        }
+        long start = startTiming();
+        try {
+            check(player, index, from, to);
+        } finally {
+            stopTiming(start);
+        }
+    }
+
+    private void check(Player player, WorldIndex index, @Nullable Location from, Location to) {
+        boolean sameWorld = from != null && from.getWorld() == to.getWorld();
+        List<LocationCriterion> chunk = index.chunks.getOrDefault(chunkKey(to.getBlockX() >> 4, to.getBlockZ() >> 4), Collections.emptyList());
+        for (LocationCriterion criterion : chunk) {
+            checkEnter(player, criterion, sameWorld, from, to);
+        }
+        for (LocationCriterion criterion : index.large) {
+            checkEnter(player, criterion, sameWorld, from, to);
+        }
+    }
+
+    private static void checkEnter(Player player, LocationCriterion criterion, boolean sameWorld, @Nullable Location from, Location to) {
+        if (criterion.contains(to.getX(), to.getY(), to.getZ())
+                && !(sameWorld && criterion.contains(from.getX(), from.getY(), from.getZ()))) {
+            criterion.perform(player);
+        }
+    }
+
+    @Override
+    public void register(Criterion criterion) {
+        if (!(getCriterionClass().isInstance(criterion))) {
+            throw new IllegalArgumentException("criterion must be a " + getCriterionClass().getName());
+        }
+
+        LocationCriterion criterion1 = (LocationCriterion) criterion;
+        WorldIndex index = worlds.computeIfAbsent(criterion1.getWorld(), k -> new WorldIndex());
+        int minX = (int) Math.floor(criterion1.getMinX()) >> 4;
+        int minZ = (int) Math.floor(criterion1.getMinZ()) >> 4;
+        int maxX = (int) Math.floor(criterion1.getMaxX()) >> 4;
+        int maxZ = (int) Math.floor(criterion1.getMaxZ()) >> 4;
+        if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > MAX_INDEXED_CHUNKS) {
+            index.large.add(criterion1);
+            return;
+        }
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                index.chunks.computeIfAbsent(chunkKey(x, z), k -> new ArrayList<>(1)).add(criterion1);
+            }
+        }
+    }
+
+    @Override
+    public Class<? extends Criterion> getCriterionClass() {
+        return LocationCriterion.class;
+    }
+
+    @Override
+    public void reload() {
+        worlds.clear();
+    }
+
+    private static long chunkKey(int x, int z) {
+        return (x & 0xFFFFFFFFL) | ((long) z << 32);
+    }
+
+    private static class WorldIndex {
+        final Map<Long, List<LocationCriterion>> chunks = new HashMap<>();
+        final List<LocationCriterion> large = new ArrayList<>();
+    }
+}
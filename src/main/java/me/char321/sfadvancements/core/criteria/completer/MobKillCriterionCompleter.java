@@ -25,6 +25,15 @@ public class MobKillCriterionCompleter implements CriterionCompleter, Listener {
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onDeath(EntityDeathEvent e) {
+        long start = startTiming();
+        try {
+            performCriteria(e);
+        } finally {
+            stopTiming(start);
+        }
+    }
+
+    private void performCriteria(EntityDeathEvent e) {
         Player killer = e.getEntity().getKiller();
         if (killer == null) {
             return;
@@ -28,7 +28,12 @@ public class MultiBlockCraftCriterionCompleter implements CriterionCompleter, Li
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onMultiBlockCraft(MultiBlockCraftEvent e) {
-        performCriteria(e.getPlayer(), e.getMachine().getId(), e.getOutput());
+        long start = startTiming();
+        try {
+            performCriteria(e.getPlayer(), e.getMachine().getId(), e.getOutput());
+        } finally {
+            stopTiming(start);
+        }
     }
 
     private void performCriteria(Player player, String machineId, ItemStack output) {
@@ -23,6 +23,15 @@ public class MultiBlockCriterionCompleter implements CriterionCompleter, Listene
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onMultiBlock(MultiBlockInteractEvent e) {
+        long start = startTiming();
+        try {
+            performCriteria(e);
+        } finally {
+            stopTiming(start);
+        }
+    }
+
+    private void performCriteria(MultiBlockInteractEvent e) {
         String machineid = e.getMultiBlock().getSlimefunItem().getId();
         if(!criteria.containsKey(machineid)) {
             return;
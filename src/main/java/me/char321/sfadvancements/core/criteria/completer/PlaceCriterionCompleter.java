@@ -18,6 +18,7 @@ import java.util.Set;
 public class PlaceCriterionCompleter implements CriterionCompleter, Listener {
     //maybe i should made this under something but that would be kinda jank oh well
     private EnumMap<Material, Set<PlaceCriterion>> criteria = new EnumMap<>(Material.class);
+    private final RateLimiter limiter = new RateLimiter(PlaceCriterion.class, "place", 20, 40);
 
     public PlaceCriterionCompleter() {
         Bukkit.getPluginManager().registerEvents(this, SFAdvancements.instance());
@@ -25,9 +26,18 @@ public class PlaceCriterionCompleter implements CriterionCompleter, Listener {
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPlace(BlockPlaceEvent e) {
+        long start = startTiming();
+        try {
+            performCriteria(e);
+        } finally {
+            stopTiming(start);
+        }
+    }
+
+    private void performCriteria(BlockPlaceEvent e) {
         Material m = e.getItemInHand().getType();
         Set<PlaceCriterion> all = criteria.get(m);
-        if (all == null) {
+        if (all == null || !limiter.tryAcquire(e.getPlayer())) {
             return;
         }
 
@@ -57,5 +67,6 @@ public class PlaceCriterionCompleter implements CriterionCompleter, Listener {
     @Override
     public void reload() {
         criteria.clear();
+        limiter.reload();
     }
 }
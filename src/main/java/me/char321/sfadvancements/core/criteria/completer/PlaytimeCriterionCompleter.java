@@ -0,0 +1,190 @@
+package me.char321.sfadvancements.core.criteria.completer;
+
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.criteria.Criterion;
+import me.char321.sfadvancements.api.criteria.PlaytimeCriterion;
+import me.char321.sfadvancements.core.criteria.progress.PlayerProgress;
+import me.char321.sfadvancements.util.TimerWheel;
+import me.char321.sfadvancements.util.Utils;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * counts playtime without doing anything per player per tick <br>
+ * only the time a player's session was last accounted is stored. the elapsed minutes are added to the progress
+ * when the progress is shown, when the player quits, when the next criterion is due,
+ * and once every autosave interval so a crash loses at most one interval.
+ * each player has one timeout in a timer wheel for the earliest time a criterion could complete
+ */
+public class PlaytimeCriterionCompleter implements CriterionCompleter, Listener {
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private final List<PlaytimeCriterion> criteria = new ArrayList<>();
+    private final Map<UUID, Session> sessions = new HashMap<>();
+    private final TimerWheel<UUID> wheel = new TimerWheel<>(1024);
+    // made once so advancing the wheel every tick doesn't allocate
+    private final Consumer<UUID> onDue = this::onDue;
+    // set when the criteria change, since every timeout might be wrong then
+    private boolean rescheduleAll = false;
+    private BukkitTask flushTask;
+    private long flushTicks;
+
+    public PlaytimeCriterionCompleter() {
+        Utils.listen(this);
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            sessions.put(player.getUniqueId(), new Session(System.currentTimeMillis()));
+        }
+        Bukkit.getScheduler().runTaskTimer(SFAdvancements.instance(), this::tick, 1L, 1L);
+        loadConfig();
+    }
+
+    private void loadConfig() {
+        long ticks = Math.max(1, SFAdvancements.getMainConfig().getConfiguration().getInt("autosave-interval", 300)) * 20L;
+        if (flushTask == null || ticks != flushTicks) {
+            if (flushTask != null) {
+                flushTask.cancel();
+            }
+            flushTicks = ticks;
+            flushTask = Bukkit.getScheduler().runTaskTimer(SFAdvancements.instance(), this::flushAll, flushTicks, flushTicks);
+        }
+    }
+
+    private void flushAll() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            flush(player);
+        }
+    }
+
+    private void tick() {
+        if (rescheduleAll) {
+            rescheduleAll = false;
+            for (Map.Entry<UUID, Session> entry : sessions.entrySet()) {
+                schedule(entry.getKey(), entry.getValue());
+            }
+        }
+        wheel.advance(onDue);
+    }
+
+    private void onDue(UUID uuid) {
+        Session session = sessions.get(uuid);
+        Player player = Bukkit.getPlayer(uuid);
+        if (session == null || player == null) {
+            return;
+        }
+        long start = startTiming();
+        try {
+            session.timeout = null;
+            flush(player);
+            schedule(uuid, session);
+        } finally {
+            stopTiming(start);
+        }
+    }
+
+    @Override
+    public void flush(Player player) {
+        Session session = sessions.get(player.getUniqueId());
+        if (session == null || criteria.isEmpty()) {
+            return;
+        }
+        long minutes = (System.currentTimeMillis() - session.accounted) / MINUTE;
+        if (minutes <= 0) {
+            return;
+        }
+        session.accounted += minutes * MINUTE;
+        int amount = (int) Math.min(Integer.MAX_VALUE, minutes);
+        for (PlaytimeCriterion criterion : criteria) {
+            criterion.perform(player.getUniqueId(), amount);
+        }
+    }
+
+    /**
+     * schedules the timeout of a player for the earliest time one of their criteria could complete
+     */
+    private void schedule(UUID uuid, Session session) {
+        if (session.timeout != null) {
+            session.timeout.cancel();
+            session.timeout = null;
+        }
+        if (criteria.isEmpty()) {
+            return;
+        }
+
+        PlayerProgress progress = SFAdvancements.getAdvManager().getProgress(uuid);
+        long remaining = Long.MAX_VALUE;
+        for (PlaytimeCriterion criterion : criteria) {
+            int current = progress.getCriterionProgress(criterion);
+            if (current < criterion.getCount()) {
+                remaining = Math.min(remaining, criterion.getCount() - current);
+            }
+        }
+        if (remaining == Long.MAX_VALUE) {
+            return;
+        }
+
+        long millis = session.accounted + remaining * MINUTE - System.currentTimeMillis();
+        session.timeout = wheel.schedule(Math.max(1, (millis + 49) / 50), uuid);
+    }
+
+    @EventHandler
+    public void onJoin(PlayerJoinEvent e) {
+        Session session = new Session(System.currentTimeMillis());
+        sessions.put(e.getPlayer().getUniqueId(), session);
+        schedule(e.getPlayer().getUniqueId(), session);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent e) {
+        flush(e.getPlayer());
+        Session session = sessions.remove(e.getPlayer().getUniqueId());
+        if (session != null && session.timeout != null) {
+            session.timeout.cancel();
+        }
+    }
+
+    @Override
+    public void register(Criterion criterion) {
+        if (!(getCriterionClass().isInstance(criterion))) {
+            throw new IllegalArgumentException("criterion must be a " + getCriterionClass().getName());
+        }
+
+        criteria.add((PlaytimeCriterion) criterion);
+        rescheduleAll = true;
+    }
+
+    @Override
+    public Class<? extends Criterion> getCriterionClass() {
+        return PlaytimeCriterion.class;
+    }
+
+    @Override
+    public void reload() {
+        criteria.clear();
+        rescheduleAll = true;
+        loadConfig();
+    }
+
+    private static class Session {
+        // the time up to which the playtime was added to the progress
+        long accounted;
+        TimerWheel.Timeout<UUID> timeout;
+
+        Session(long start) {
+            this.accounted = start;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package me.char321.sfadvancements.core.criteria.completer;
+
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.criteria.Criterion;
+import me.char321.sfadvancements.util.Utils;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * a token bucket per player for one criterion type, so farms and macro clickers can't perform criteria
+ * faster than a player reasonably could <br>
+ * configured under rate-limit.&lt;name&gt; in the config, a rate of 0 turns it off.
+ * only used on the main thread
+ */
+public class RateLimiter implements Listener {
+    private final Class<? extends Criterion> type;
+    private final String name;
+    private final double defaultRate;
+    private final double defaultBurst;
+    private final Map<UUID, Bucket> buckets = new HashMap<>();
+    private double rate;
+    private double burst;
+
+    /**
+     * @param type the criterion class of the completer, for the metrics
+     * @param name the name of the config section
+     * @param defaultRate how many events per second are let through by default
+     * @param defaultBurst how many events can be let through at once by default
+     */
+    public RateLimiter(Class<? extends Criterion> type, String name, double defaultRate, double defaultBurst) {
+        this.type = type;
+        this.name = name;
+        this.defaultRate = defaultRate;
+        this.defaultBurst = defaultBurst;
+        reload();
+        Utils.listen(this);
+    }
+
+    /**
+     * reads the limits from the config again and refills every bucket
+     */
+    public void reload() {
+        FileConfiguration config = SFAdvancements.getMainConfig().getConfiguration();
+        rate = config.getDouble("rate-limit." + name + ".rate", defaultRate);
+        burst = Math.max(1, config.getDouble("rate-limit." + name + ".burst", defaultBurst));
+        buckets.clear();
+    }
+
+    /**
+     * takes a token from the player's bucket, the event should be dropped if this returns false
+     *
+     * @param player the player that caused the event
+     * @return whether the player is under the limit
+     */
+    public boolean tryAcquire(Player player) {
+        if (rate <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(player.getUniqueId());
+        if (bucket == null) {
+            bucket = new Bucket(burst, now);
+            buckets.put(player.getUniqueId(), bucket);
+        }
+        if (bucket.take(now, rate, burst)) {
+            return true;
+        }
+        SFAdvancements.getStats().recordSuppressed(type);
+        return false;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent e) {
+        buckets.remove(e.getPlayer().getUniqueId());
+    }
+
+    private static class Bucket {
+        private double tokens;
+        private long lastRefill;
+
+        Bucket(double tokens, long lastRefill) {
+            this.tokens = tokens;
+            this.lastRefill = lastRefill;
+        }
+
+        boolean take(long now, double rate, double burst) {
+            tokens = Math.min(burst, tokens + (now - lastRefill) * rate / 1e9);
+            lastRefill = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+}
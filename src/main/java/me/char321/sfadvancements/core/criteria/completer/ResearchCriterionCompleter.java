@@ -31,14 +31,24 @@ public class ResearchCriterionCompleter implements CriterionCompleter, Listener
         Player p = e.getPlayer();
         PlayerProfile.get(p, (profile) -> {
             for (Research research : profile.getResearches()) {
-                performCriteria(p, research);
+                long start = startTiming();
+                try {
+                    performCriteria(p, research);
+                } finally {
+                    stopTiming(start);
+                }
             }
         });
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPlayerResearch(ResearchUnlockEvent e) {
-        performCriteria(e.getPlayer(), e.getResearch());
+        long start = startTiming();
+        try {
+            performCriteria(e.getPlayer(), e.getResearch());
+        } finally {
+            stopTiming(start);
+        }
     }
 
     private void performCriteria(Player player, Research research) {
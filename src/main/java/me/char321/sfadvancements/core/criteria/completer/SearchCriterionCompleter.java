@@ -42,7 +42,14 @@ public class SearchCriterionCompleter implements CriterionCompleter {
                         if (!queue.isEmpty()) {
                             Object str = getIndexedObject.invoke(queue.getLast());
                             if (str instanceof String) {
-                                Utils.runSync(() -> onSearch(onlinePlayer, (String)str));
+                                Utils.runSync(() -> {
+                                    long start = startTiming();
+                                    try {
+                                        onSearch(onlinePlayer, (String)str);
+                                    } finally {
+                                        stopTiming(start);
+                                    }
+                                });
                             }
                         }
                     } catch (ReflectiveOperationException e) {
@@ -21,8 +21,12 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -33,10 +37,18 @@ import java.util.logging.Level;
  *
  * json <br>
  *
+ * the progress is changed on the main thread and saved asynchronously,
+ * so every access locks the object and saving only holds the lock while copying the progress.
+ * saves of the same player are written one at a time, in the order they were copied
  */
 public class PlayerProgress {
     private final UUID player;
     private final Map<NamespacedKey, AdvancementProgress> progressMap = new HashMap<>();
+    // whether the progress changed since it was last saved
+    private volatile boolean dirty = false;
+    private final Object writeLock = new Object();
+    // set once the progress was saved for the last time, so a save that is still running elsewhere can't overwrite newer progress
+    private boolean unloaded = false;
 
     private PlayerProgress(UUID player) {
         this.player = player;
@@ -47,6 +59,7 @@ public class PlayerProgress {
     }
 
     public static PlayerProgress get(UUID player) {
+        long start = System.nanoTime();
         PlayerProgress res = new PlayerProgress(player);
 
         File advancementsFolder = new File(SFAdvancements.instance().getDataFolder(), "/advancements");
@@ -54,39 +67,73 @@ public class PlayerProgress {
         if (f.exists()) {
             try {
                 JsonObject object = JsonParser.parseReader(new BufferedReader(new InputStreamReader(new FileInputStream(f), StandardCharsets.UTF_8))).getAsJsonObject();
-                res.loadFromObject(object);
+                res = fromObject(player, object);
             } catch (IOException e) {
                 SFAdvancements.logger().log(Level.SEVERE, "读取进度时发生错误", e);
             }
         }
+        SFAdvancements.getStats().getProgressLoad().record(System.nanoTime() - start);
         return res;
     }
 
-    public void doCriterion(Criterion criterion) {
+    /**
+     * creates the progress of a player from its stored json
+     *
+     * @param player the uuid of the player
+     * @param object the stored progress
+     * @return the progress
+     */
+    static PlayerProgress fromObject(UUID player, JsonObject object) {
+        PlayerProgress res = new PlayerProgress(player);
+        res.loadFromObject(object);
+        return res;
+    }
+
+    public boolean doCriterion(Criterion criterion) {
+        return doCriterion(criterion, 1);
+    }
+
+    /**
+     * increments the progress of a criterion by more than one at once
+     *
+     * @param criterion the criterion
+     * @param amount how much to add to the progress
+     * @return whether the progress changed
+     */
+    public synchronized boolean doCriterion(Criterion criterion, int amount) {
+        if (amount <= 0) {
+            return false;
+        }
         NamespacedKey adv = criterion.getAdvancement();
         progressMap.computeIfAbsent(adv, AdvancementProgress::new);
 
         AdvancementProgress advProgress = progressMap.get(adv);
         if (advProgress.done) {
-            return;
+            return false;
         }
 
+        boolean changed = false;
+
         for (CriteriaProgress progress : advProgress.criteria) {
             if (!progress.id.equals(criterion.getId())) {
                 continue;
             }
 
             if (progress.progress < criterion.getCount()) {
-                progress.progress++;
+                progress.progress = (int) Math.min(criterion.getCount(), (long) progress.progress + amount);
+                SFAdvancements.getStats().recordProgressUpdate();
                 if (progress.progress >= criterion.getCount()) {
                     progress.done = true;
                     advProgress.updateDone();
                 }
+                journal(advProgress);
+                changed = true;
             }
         }
+        return changed;
     }
 
-    public void completeCriterion(Criterion criterion) {
+    public synchronized void completeCriterion(Criterion criterion) {
         NamespacedKey adv = criterion.getAdvancement();
         AdvancementProgress progress = progressMap.computeIfAbsent(adv, AdvancementProgress::new);
 
@@ -102,10 +149,11 @@ public class PlayerProgress {
             criteriaProgress.done = true;
             criteriaProgress.progress = criterion.getCount();
             progress.updateDone();
+            journal(progress);
         }
     }
 
-    public int getCriterionProgress(Criterion cri) {
+    public synchronized int getCriterionProgress(Criterion cri) {
         NamespacedKey adv = cri.getAdvancement();
         if (!progressMap.containsKey(adv)) {
             return 0;
@@ -120,20 +168,148 @@ public class PlayerProgress {
         throw new IllegalStateException();
     }
 
-    public boolean revokeAdvancement(NamespacedKey adv) {
-        if (!progressMap.containsKey(adv)) {
+    public synchronized boolean revokeAdvancement(NamespacedKey adv) {
+        if (!resetAdvancement(adv)) {
             return false;
         }
-        progressMap.get(adv).done = false;
-        for (CriteriaProgress progress : progressMap.get(adv).criteria) {
+        Utils.fromKey(adv).revoke(Bukkit.getPlayer(player));
+        return true;
+    }
+
+    /**
+     * completes every criterion of the given advancements at once,
+     * without giving rewards or syncing the vanilla advancements
+     *
+     * @param advancements the advancements to complete
+     * @return the advancements that weren't already completed
+     */
+    public synchronized List<Advancement> grantAdvancements(Collection<Advancement> advancements) {
+        List<Advancement> res = new ArrayList<>();
+        for (Advancement adv : advancements) {
+            AdvancementProgress progress = progressMap.computeIfAbsent(adv.getKey(), k -> new AdvancementProgress(adv));
+            if (progress.done) {
+                continue;
+            }
+            Criterion[] criteria = adv.getCriteria();
+            for (int i = 0; i < progress.criteria.length; i++) {
+                progress.criteria[i].done = true;
+                progress.criteria[i].progress = criteria[i].getCount();
+            }
+            progress.done = true;
+            journal(progress);
+            res.add(adv);
+        }
+        return res;
+    }
+
+    /**
+     * clears the progress of the given advancements at once, without syncing the vanilla advancements
+     *
+     * @param advancements the keys of the advancements to revoke
+     * @return the advancements that had any progress
+     */
+    public synchronized List<NamespacedKey> revokeAdvancements(Collection<NamespacedKey> advancements) {
+        List<NamespacedKey> res = new ArrayList<>();
+        for (NamespacedKey adv : advancements) {
+            if (resetAdvancement(adv)) {
+                res.add(adv);
+            }
+        }
+        return res;
+    }
+
+    private boolean resetAdvancement(NamespacedKey adv) {
+        AdvancementProgress advProgress = progressMap.get(adv);
+        if (advProgress == null) {
+            return false;
+        }
+        advProgress.done = false;
+        for (CriteriaProgress progress : advProgress.criteria) {
             progress.done = false;
             progress.progress = 0;
         }
-        Utils.fromKey(adv).revoke(Bukkit.getPlayer(player));
+        journal(advProgress);
         return true;
     }
 
-    public List<NamespacedKey> getCompletedAdvancements() {
+    /**
+     * overwrites the progress of an advancement with a state recovered from the {@link ProgressJournal}
+     *
+     * @param adv the key of the advancement
+     * @param done whether the advancement was completed
+     * @param criteria the progress of each criterion, by criterion id
+     */
+    synchronized void applyJournal(NamespacedKey adv, boolean done, Map<String, Integer> criteria) {
+        if (!Utils.isValidAdvancement(adv)) {
+            return;
+        }
+        AdvancementProgress advProgress = progressMap.computeIfAbsent(adv, AdvancementProgress::new);
+        dirty = true;
+        advProgress.done = done;
+        Criterion[] definitions = advProgress.adv.getCriteria();
+        for (int i = 0; i < advProgress.criteria.length; i++) {
+            CriteriaProgress progress = advProgress.criteria[i];
+            progress.progress = criteria.getOrDefault(progress.id, 0);
+            progress.done = progress.progress >= definitions[i].getCount();
+        }
+    }
+
+    /**
+     * points the progress at the advancements in the current registry, after a reload <br>
+     * progress is kept by criterion id, and progress of advancements that no longer exist is dropped.
+     * advancements whose remaining criteria are all done are completed
+     */
+    public synchronized void remap() {
+        Iterator<Map.Entry<NamespacedKey, AdvancementProgress>> iterator = progressMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<NamespacedKey, AdvancementProgress> entry = iterator.next();
+            Advancement adv = Utils.fromKey(entry.getKey());
+            if (adv == null) {
+                iterator.remove();
+                dirty = true;
+                continue;
+            }
+
+            AdvancementProgress old = entry.getValue();
+            AdvancementProgress remapped = new AdvancementProgress(adv);
+            remapped.done = old.done;
+            // only rewrite the player if progress was dropped or changed, new criteria just start at 0
+            boolean changed = false;
+            int carried = 0;
+            Criterion[] definitions = adv.getCriteria();
+            for (int i = 0; i < remapped.criteria.length; i++) {
+                CriteriaProgress progress = remapped.criteria[i];
+                for (CriteriaProgress oldProgress : old.criteria) {
+                    if (oldProgress.id.equals(progress.id)) {
+                        progress.progress = Math.min(oldProgress.progress, definitions[i].getCount());
+                        progress.done = progress.progress >= definitions[i].getCount();
+                        changed |= progress.progress != oldProgress.progress;
+                        carried++;
+                        break;
+                    }
+                }
+            }
+            entry.setValue(remapped);
+            if (!remapped.done) {
+                // the last unfinished criterion might have been removed
+                remapped.updateDone();
+            }
+            if (changed || carried < old.criteria.length || remapped.done != old.done) {
+                dirty = true;
+            }
+        }
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    private void journal(AdvancementProgress progress) {
+        dirty = true;
+        SFAdvancements.getProgressJournal().record(player, progress);
+    }
+
+    public synchronized List<NamespacedKey> getCompletedAdvancements() {
         List<NamespacedKey> res = new ArrayList<>();
         for (Map.Entry<NamespacedKey, AdvancementProgress> entry : progressMap.entrySet()) {
             if (entry.getValue().done) {
@@ -157,31 +333,75 @@ public class PlayerProgress {
     }
 
     public void save() throws IOException {
+        synchronized (writeLock) {
+            if (unloaded) {
+                return;
+            }
+            long start = System.nanoTime();
+            List<Snapshot> snapshot;
+            boolean wasDirty;
+            synchronized (this) {
+                snapshot = new ArrayList<>(progressMap.size());
+                for (Map.Entry<NamespacedKey, AdvancementProgress> entry : progressMap.entrySet()) {
+                    snapshot.add(new Snapshot(entry.getKey().toString(), entry.getValue()));
+                }
+                // cleared with the copy, so changes made while writing mark the progress dirty again
+                wasDirty = dirty;
+                dirty = false;
+            }
+
+            try {
+                write(snapshot);
+            } catch (IOException | RuntimeException e) {
+                if (wasDirty) {
+                    dirty = true;
+                }
+                throw e;
+            }
+            SFAdvancements.getStats().getProgressSave().record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * saves the progress for the last time, later saves of this object do nothing <br>
+     * after this the player can be removed from the cache and loaded again from disk
+     */
+    public void unload() throws IOException {
+        synchronized (writeLock) {
+            save();
+            unloaded = true;
+        }
+    }
+
+    private void write(List<Snapshot> snapshot) throws IOException {
         File advancementsFolder = new File(SFAdvancements.instance().getDataFolder(), "/advancements");
         File f = new File(advancementsFolder, player +".json");
-        if (!f.exists()) {
-            f.getParentFile().mkdirs();
-            if (!f.createNewFile()) {
-                throw new IOException("无法创建文件 " + f.getPath());
+        // write to a temporary file first so a failed or interrupted save never leaves a half written file
+        File temp = new File(advancementsFolder, player + ".json.tmp");
+        if (!temp.exists()) {
+            temp.getParentFile().mkdirs();
+            if (!temp.createNewFile()) {
+                throw new IOException("无法创建文件 " + temp.getPath());
             }
         }
 
-        try(JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f, false), StandardCharsets.UTF_8)))) {
+        try(JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp, false), StandardCharsets.UTF_8)))) {
             writer.beginObject();
-            for (Map.Entry<NamespacedKey, AdvancementProgress> entry : progressMap.entrySet()) {
-                writer.name(entry.getKey().toString());
+            for (Snapshot entry : snapshot) {
+                writer.name(entry.key);
                 writer.beginObject();
-                writer.name("done").value(entry.getValue().done);
+                writer.name("done").value(entry.done);
                 writer.name("criteria");
                 writer.beginObject();
-                for (CriteriaProgress criterion : entry.getValue().criteria) {
-                    writer.name(criterion.id).value(criterion.progress);
+                for (int i = 0; i < entry.ids.length; i++) {
+                    writer.name(entry.ids[i]).value(entry.values[i]);
                 }
                 writer.endObject();
                 writer.endObject();
             }
             writer.endObject();
         }
+        Files.move(temp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
     /**
@@ -190,7 +410,7 @@ public class PlayerProgress {
      * @param key the key of the advancement
      * @return if the advancement is completed
      */
-    public boolean isCompleted(NamespacedKey key) {
+    public synchronized boolean isCompleted(NamespacedKey key) {
         if (!progressMap.containsKey(key)) {
             return false;
         }
@@ -223,7 +443,9 @@ public class PlayerProgress {
             }
             this.done = true;
 
-            adv.onComplete(Bukkit.getPlayer(player));
+            if (Bukkit.getPlayer(player) != null) {
+                SFAdvancements.getCompletionTask().queue(player, adv);
+            }
         }
 
         void loadFromObject(JsonObject object) {
@@ -247,6 +469,27 @@ public class PlayerProgress {
         }
     }
 
+    /**
+     * a copy of the progress of one advancement, taken while holding the lock
+     */
+    private static class Snapshot {
+        final String key;
+        final boolean done;
+        final String[] ids;
+        final int[] values;
+
+        Snapshot(String key, AdvancementProgress progress) {
+            this.key = key;
+            this.done = progress.done;
+            this.ids = new String[progress.criteria.length];
+            this.values = new int[progress.criteria.length];
+            for (int i = 0; i < progress.criteria.length; i++) {
+                ids[i] = progress.criteria[i].id;
+                values[i] = progress.criteria[i].progress;
+            }
+        }
+    }
+
     static class CriteriaProgress {
         String id;
         boolean done = false;
@@ -0,0 +1,308 @@
+package me.char321.sfadvancements.core.criteria.progress;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import me.char321.sfadvancements.SFAdvancements;
+import org.bukkit.NamespacedKey;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * an append-only journal of progress changes, so progress made between autosaves survives a crash <br>
+ * every change to an advancement's progress is appended as one json line by a background thread,
+ * which writes and syncs everything that queued up while it was busy in one go. <br>
+ * the journal is split into segments: before a full save the journal is rotated to a new segment,
+ * and once the save succeeds every older segment is deleted. on startup, leftover segments are replayed over the saved progress
+ */
+public class ProgressJournal {
+    private static final Object CLOSE = new Object();
+
+    private final File folder;
+    // only set once the journal starts, nothing is recorded before that
+    private volatile boolean enabled = false;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong segment = new AtomicLong();
+    private Thread writerThread;
+    private volatile boolean failed = false;
+
+    public ProgressJournal(File folder) {
+        this.folder = folder;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return how many records are waiting to be written
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * replays leftover segments over the saved progress, then starts writing a new segment <br>
+     * has to be called after the advancements are loaded
+     *
+     * @param enabled whether to journal at all, if false this does nothing
+     */
+    public void start(boolean enabled) {
+        if (!enabled) {
+            return;
+        }
+        folder.mkdirs();
+        long last = replay();
+        segment.set(last + 1);
+
+        writerThread = new Thread(this::writeLoop, "SFAdvancements-Journal");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        this.enabled = true;
+    }
+
+    /**
+     * flushes everything that was recorded and stops the writer thread
+     */
+    public void close() {
+        if (writerThread == null) {
+            return;
+        }
+        queue.add(CLOSE);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    void record(UUID player, PlayerProgress.AdvancementProgress progress) {
+        if (!enabled || failed) {
+            return;
+        }
+        PlayerProgress.CriteriaProgress[] criteria = progress.criteria;
+        String[] ids = new String[criteria.length];
+        int[] values = new int[criteria.length];
+        for (int i = 0; i < criteria.length; i++) {
+            ids[i] = criteria[i].id;
+            values[i] = criteria[i].progress;
+        }
+        queue.add(new Entry(player, progress.adv.getKey(), progress.done, ids, values));
+    }
+
+    /**
+     * starts a new segment, should be called right before all progress is saved
+     *
+     * @return the last segment that will be covered by the save
+     */
+    public long rotate() {
+        long old = segment.getAndIncrement();
+        if (enabled) {
+            queue.add(new Rotate(old + 1));
+        }
+        return old;
+    }
+
+    /**
+     * deletes the segments that are covered by a successful save
+     *
+     * @param upTo the segment returned by {@link #rotate()} before the save
+     */
+    public void truncate(long upTo) {
+        if (enabled) {
+            queue.add(new Truncate(upTo));
+        }
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        FileOutputStream out = null;
+        BufferedWriter writer = null;
+        try {
+            out = new FileOutputStream(segmentFile(segment.get()), true);
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (Object o : batch) {
+                    if (o instanceof Entry entry) {
+                        writer.write(entry.toJson());
+                        writer.newLine();
+                    } else if (o instanceof Rotate rotate) {
+                        writer.flush();
+                        out.getChannel().force(false);
+                        writer.close();
+                        out = new FileOutputStream(segmentFile(rotate.segment), true);
+                        writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                    } else if (o instanceof Truncate truncate) {
+                        deleteSegments(truncate.upTo);
+                    } else if (o == CLOSE) {
+                        writer.flush();
+                        out.getChannel().force(false);
+                        writer.close();
+                        return;
+                    }
+                }
+                // group commit: one flush and sync for everything in the batch
+                writer.flush();
+                out.getChannel().force(false);
+                batch.clear();
+            }
+        } catch (IOException e) {
+            failed = true;
+            queue.clear();
+            SFAdvancements.logger().log(Level.SEVERE, e, () -> "写入进度日志时发生错误, 进度日志已停止");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                    // nothing left to do
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the last segment that exists, or 0 if there are none
+     */
+    private long replay() {
+        File[] files = listSegments();
+        if (files.length == 0) {
+            return 0;
+        }
+
+        // only the last state of each advancement matters
+        Map<UUID, Map<NamespacedKey, JsonObject>> states = new HashMap<>();
+        int records = 0;
+        for (File file : files) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        JsonObject record = JsonParser.parseString(line).getAsJsonObject();
+                        UUID player = UUID.fromString(record.get("p").getAsString());
+                        NamespacedKey key = NamespacedKey.fromString(record.get("a").getAsString());
+                        if (key != null) {
+                            states.computeIfAbsent(player, k -> new LinkedHashMap<>()).put(key, record);
+                            records++;
+                        }
+                    } catch (JsonParseException | IllegalStateException | IllegalArgumentException e) {
+                        // the last line may be incomplete if the server crashed while writing it
+                    }
+                }
+            } catch (IOException e) {
+                SFAdvancements.logger().log(Level.SEVERE, e, () -> "读取进度日志 " + file + " 时发生错误");
+                return segmentOf(files[files.length - 1]);
+            }
+        }
+
+        boolean failed = false;
+        for (Map.Entry<UUID, Map<NamespacedKey, JsonObject>> entry : states.entrySet()) {
+            PlayerProgress progress = SFAdvancements.getAdvManager().getPlayerMap().get(entry.getKey());
+            boolean cached = progress != null;
+            if (!cached) {
+                progress = PlayerProgress.get(entry.getKey());
+            }
+            for (Map.Entry<NamespacedKey, JsonObject> state : entry.getValue().entrySet()) {
+                JsonObject record = state.getValue();
+                Map<String, Integer> criteria = new HashMap<>();
+                for (Map.Entry<String, JsonElement> criterion : record.getAsJsonObject("c").entrySet()) {
+                    criteria.put(criterion.getKey(), criterion.getValue().getAsInt());
+                }
+                progress.applyJournal(state.getKey(), record.get("d").getAsBoolean(), criteria);
+            }
+            if (!cached) {
+                try {
+                    progress.save();
+                } catch (IOException e) {
+                    failed = true;
+                    SFAdvancements.logger().log(Level.SEVERE, e, () -> "无法保存从进度日志恢复的进度: " + entry.getKey());
+                }
+            }
+        }
+
+        SFAdvancements.info("已从进度日志恢复 " + records + " 条记录 (" + states.size() + " 个玩家)");
+        long last = segmentOf(files[files.length - 1]);
+        if (!failed) {
+            deleteSegments(last);
+        }
+        return last;
+    }
+
+    private void deleteSegments(long upTo) {
+        for (File file : listSegments()) {
+            if (segmentOf(file) <= upTo && !file.delete()) {
+                SFAdvancements.warn("无法删除进度日志 " + file);
+            }
+        }
+    }
+
+    private File[] listSegments() {
+        File[] files = folder.listFiles((dir, name) -> name.startsWith("journal-") && name.endsWith(".log"));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files, Comparator.comparingLong(ProgressJournal::segmentOf));
+        return files;
+    }
+
+    private File segmentFile(long segment) {
+        return new File(folder, "journal-" + segment + ".log");
+    }
+
+    private static long segmentOf(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private record Entry(UUID player, NamespacedKey advancement, boolean done, String[] ids, int[] values) {
+        String toJson() {
+            JsonObject criteria = new JsonObject();
+            for (int i = 0; i < ids.length; i++) {
+                criteria.addProperty(ids[i], values[i]);
+            }
+            JsonObject json = new JsonObject();
+            json.addProperty("p", player.toString());
+            json.addProperty("a", advancement.toString());
+            json.addProperty("d", done);
+            json.add("c", criteria);
+            return json.toString();
+        }
+    }
+
+    private record Rotate(long segment) {}
+
+    private record Truncate(long upTo) {}
+}
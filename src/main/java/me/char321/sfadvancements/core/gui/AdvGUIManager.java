@@ -1,5 +1,7 @@
 package me.char321.sfadvancements.core.gui;
 
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.core.criteria.completer.CriterionCompleter;
 import me.char321.sfadvancements.util.Utils;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -14,6 +16,9 @@ public class AdvGUIManager implements Listener {
     private final Map<UUID, OpenGUI> guis = new HashMap<>();
 
     public void displayGUI(Player p) {
+        for (CriterionCompleter completer : SFAdvancements.getRegistry().getCompleters().values()) {
+            completer.flush(p);
+        }
         OpenGUI gui = getByPlayer(p);
         p.openInventory(gui.getInventory());
     }
@@ -8,7 +8,6 @@ import me.char321.sfadvancements.SFAdvancements;
 import me.char321.sfadvancements.api.Advancement;
 import me.char321.sfadvancements.api.AdvancementGroup;
 import me.char321.sfadvancements.api.criteria.Criterion;
-import me.char321.sfadvancements.core.registry.AdvancementsRegistry;
 import me.char321.sfadvancements.util.Utils;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -26,11 +25,12 @@ import java.util.UUID;
 
 public class OpenGUI {
     private final Inventory inventory;
-    private final AdvancementsRegistry registry = SFAdvancements.getRegistry();
     private final UUID playerUUID;
     private int page = 1;
     private int groupIndex = 0;
     private int scroll = 0;
+    // read once per click or refresh
+    private List<AdvancementGroup> groups;
 
     public OpenGUI(Player player) {
         this(player.getUniqueId());
@@ -48,25 +48,26 @@ public class OpenGUI {
     }
 
     public void click(Player player, int slot) {
+        groups = SFAdvancements.getRegistry().getAdvancementGroupsSnapshot();
         if (slot == 0) {
             PlayerProfile.find(player).ifPresent(profile -> SlimefunGuide.openMainMenu(profile, SlimefunGuideMode.SURVIVAL_MODE, profile.getGuideHistory().getMainMenuPage()));
         } else if (slot == 1 && page > 1) {
             page--;
         } else if (slot == 7) {
-            int maxPage = (registry.getAdvancementGroups().size() - 1) / 5 + 1;
+            int maxPage = (groups.size() - 1) / 5 + 1;
             if (page + 1 <= maxPage) {
                 page++;
             }
         } else if (slot > 1 && slot < 7) {
             int possibleIndex = 5 * (page - 1) + (slot - 2);
-            if (registry.getAdvancementGroups().size() > possibleIndex) {
+            if (groups.size() > possibleIndex) {
                 groupIndex = possibleIndex;
                 scroll = 0;
             }
         } else if (slot == 17 && scroll > 0) {
             scroll--;
         } else if (slot == 53) {
-            AdvancementGroup group = registry.getAdvancementGroups().get(groupIndex);
+            AdvancementGroup group = groups.get(groupIndex);
             //make better
             int size = group.getVisibleAdvancements(playerUUID).size();
             int maxScroll = (size - 1) / 8 - 4;
@@ -78,12 +79,22 @@ public class OpenGUI {
     }
 
     public void refresh() {
+        long start = System.nanoTime();
+        // the groups may have changed after a reload
+        groups = SFAdvancements.getRegistry().getAdvancementGroupsSnapshot();
+        int groupCount = groups.size();
+        if (groupIndex >= groupCount) {
+            groupIndex = 0;
+            scroll = 0;
+        }
+        page = Math.min(page, (groupCount - 1) / 5 + 1);
         refreshBackButton();
         refreshStats();
         refreshArrows();
         refreshGroups();
         refreshScroll();
         refreshAdvancements();
+        SFAdvancements.getStats().getGuiRefresh().record(System.nanoTime() - start);
     }
 
     private void refreshBackButton() {
@@ -113,7 +124,7 @@ public class OpenGUI {
     }
 
     private void refreshArrows() {
-        int maxPage = (registry.getAdvancementGroups().size() - 1) / 5 + 1;
+        int maxPage = (groups.size() - 1) / 5 + 1;
         String pageLore = "&7(" + page + " / " + maxPage + ")";
 
         ItemStack leftArrow;
@@ -138,8 +149,8 @@ public class OpenGUI {
             int slot = i+2;
             int dispIndex = 5 * (page - 1) + i;
             ItemStack display;
-            if (registry.getAdvancementGroups().size() > dispIndex) {
-                display = registry.getAdvancementGroups().get(dispIndex).getDisplayItem();
+            if (groups.size() > dispIndex) {
+                display = groups.get(dispIndex).getDisplayItem();
                 if (dispIndex == groupIndex) {
                     display = Utils.makeShiny(display);
                 }
@@ -151,7 +162,7 @@ public class OpenGUI {
     }
 
     private void refreshScroll() {
-        AdvancementGroup group = registry.getAdvancementGroups().get(groupIndex);
+        AdvancementGroup group = groups.get(groupIndex);
         inventory.setItem(26, MenuItems.YELLOW);
         inventory.setItem(35, MenuItems.YELLOW);
         inventory.setItem(44, MenuItems.YELLOW);
@@ -176,7 +187,7 @@ public class OpenGUI {
     }
 
     private void refreshAdvancements() {
-        AdvancementGroup group = registry.getAdvancementGroups().get(groupIndex);
+        AdvancementGroup group = groups.get(groupIndex);
         List<Advancement> advancements = group.getVisibleAdvancements(playerUUID);
         for (int i = 0; i < 40; i++) {
             int row = i / 8 + 1;
@@ -0,0 +1,51 @@
+package me.char321.sfadvancements.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * the counters of one criterion type
+ */
+public class CompleterStats {
+    private final LongAdder events = new LongAdder();
+    private final LongAdder matched = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final Histogram handlerTime = new Histogram();
+
+    void recordEvent(long nanos) {
+        events.increment();
+        handlerTime.record(nanos);
+    }
+
+    void recordMatch() {
+        matched.increment();
+    }
+
+    void recordSuppressed() {
+        suppressed.increment();
+    }
+
+    /**
+     * @return how many events the completer handled
+     */
+    public long getEvents() {
+        return events.sum();
+    }
+
+    /**
+     * @return how many times a criterion of this type was performed
+     */
+    public long getMatched() {
+        return matched.sum();
+    }
+
+    /**
+     * @return how many events were dropped by the rate limit
+     */
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+
+    public Histogram getHandlerTime() {
+        return handlerTime;
+    }
+}
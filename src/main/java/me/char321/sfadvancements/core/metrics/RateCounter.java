@@ -0,0 +1,50 @@
+package me.char321.sfadvancements.core.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * counts events over the last minute, in one second buckets
+ */
+public class RateCounter {
+    private static final int BUCKETS = 60;
+
+    // the low 32 bits of the second in the high half and the count in the low half,
+    // so a bucket rolls over to a new second in the same cas as the increment
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    public void increment() {
+        long now = currentSecond();
+        int i = (int) Math.floorMod(now, BUCKETS);
+        while (true) {
+            long bucket = buckets.get(i);
+            long next = second(bucket) == (int) now ? bucket + 1 : ((long) (int) now << 32) | 1;
+            if (buckets.compareAndSet(i, bucket, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return how many events happened in the last 60 seconds
+     */
+    public long getLastMinute() {
+        int now = (int) currentSecond();
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucket = buckets.get(i);
+            if (now - second(bucket) < BUCKETS) {
+                total += bucket & 0xFFFFFFFFL;
+            }
+        }
+        return total;
+    }
+
+    private static int second(long bucket) {
+        return (int) (bucket >>> 32);
+    }
+
+    private static long currentSecond() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+    }
+}
@@ -0,0 +1,143 @@
+package me.char321.sfadvancements.core.metrics;
+
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.criteria.Criterion;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+
+/**
+ * exposes {@link Stats} and the cache and queue sizes over jmx <br>
+ * every attribute is read from counters or concurrent collections, so reading never blocks the server
+ */
+public class SFAMetrics implements SFAMetricsMXBean {
+    public static final String OBJECT_NAME = "me.char321.sfadvancements:type=Metrics";
+
+    private SFAMetrics() {}
+
+    public static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            // left over from a previous instance of the plugin
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new SFAMetrics(), name);
+        } catch (JMException e) {
+            SFAdvancements.logger().log(Level.WARNING, e, () -> "无法注册 JMX 统计");
+        }
+    }
+
+    public static void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            SFAdvancements.logger().log(Level.WARNING, e, () -> "无法注销 JMX 统计");
+        }
+    }
+
+    private static Stats stats() {
+        return SFAdvancements.getStats();
+    }
+
+    @Override
+    public int getCachedPlayers() {
+        return SFAdvancements.getAdvManager().getPlayerMap().size();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return stats().getCacheHits();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return stats().getCacheMisses();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        long hits = stats().getCacheHits();
+        long total = hits + stats().getCacheMisses();
+        return total == 0 ? 1 : (double) hits / total;
+    }
+
+    @Override
+    public int getDirtyPlayers() {
+        return SFAdvancements.getAdvManager().getDirtyCount();
+    }
+
+    @Override
+    public int getJournalQueueDepth() {
+        return SFAdvancements.getProgressJournal().getQueueDepth();
+    }
+
+    @Override
+    public int getRewardQueueDepth() {
+        return SFAdvancements.getRewardTask().getQueueDepth();
+    }
+
+    @Override
+    public int getCompletionQueueDepth() {
+        return SFAdvancements.getCompletionTask().size();
+    }
+
+    @Override
+    public long getSaves() {
+        return stats().getProgressSave().getCount();
+    }
+
+    @Override
+    public double getSaveLatencyMeanMillis() {
+        return stats().getProgressSave().getMean() / 1e6;
+    }
+
+    @Override
+    public double getSaveLatencyP99Millis() {
+        return stats().getProgressSave().getPercentile(0.99) / 1e6;
+    }
+
+    @Override
+    public long getCompletionsPerMinute() {
+        return stats().getCompletions().getLastMinute();
+    }
+
+    @Override
+    public long getProgressUpdates() {
+        return stats().getProgressUpdates();
+    }
+
+    @Override
+    public Map<String, Long> getCompleterEvents() {
+        return perCompleter(CompleterStats::getEvents);
+    }
+
+    @Override
+    public Map<String, Long> getCompleterMatches() {
+        return perCompleter(CompleterStats::getMatched);
+    }
+
+    @Override
+    public Map<String, Long> getCompleterSuppressed() {
+        return perCompleter(CompleterStats::getSuppressed);
+    }
+
+    private static Map<String, Long> perCompleter(ToLongFunction<CompleterStats> value) {
+        Map<String, Long> res = new TreeMap<>();
+        for (Map.Entry<Class<? extends Criterion>, CompleterStats> entry : stats().getCompleters().entrySet()) {
+            res.put(entry.getKey().getSimpleName(), value.applyAsLong(entry.getValue()));
+        }
+        return res;
+    }
+}
@@ -0,0 +1,40 @@
+package me.char321.sfadvancements.core.metrics;
+
+import java.util.Map;
+
+/**
+ * the runtime metrics exposed over jmx, under {@value SFAMetrics#OBJECT_NAME}
+ */
+public interface SFAMetricsMXBean {
+    int getCachedPlayers();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitRate();
+
+    int getDirtyPlayers();
+
+    int getJournalQueueDepth();
+
+    int getRewardQueueDepth();
+
+    int getCompletionQueueDepth();
+
+    long getSaves();
+
+    double getSaveLatencyMeanMillis();
+
+    double getSaveLatencyP99Millis();
+
+    long getCompletionsPerMinute();
+
+    long getProgressUpdates();
+
+    Map<String, Long> getCompleterEvents();
+
+    Map<String, Long> getCompleterMatches();
+
+    Map<String, Long> getCompleterSuppressed();
+}
@@ -0,0 +1,118 @@
+package me.char321.sfadvancements.core.metrics;
+
+import me.char321.sfadvancements.api.criteria.Criterion;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * runtime counters and timings, shown with /sfa stats <br>
+ * everything is lock-free so recording never blocks the main thread
+ */
+public class Stats {
+    private final Map<Class<? extends Criterion>, CompleterStats> completers = new ConcurrentHashMap<>();
+    private final LongAdder progressUpdates = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final RateCounter completions = new RateCounter();
+    private final Histogram progressLoad = new Histogram();
+    private final Histogram progressSave = new Histogram();
+    private final Histogram guiRefresh = new Histogram();
+    private final Histogram vanillaSync = new Histogram();
+
+    /**
+     * records an event handled by a completer
+     *
+     * @param type the criterion class of the completer
+     * @param start the {@link System#nanoTime()} when the handler started
+     */
+    public void recordEvent(Class<? extends Criterion> type, long start) {
+        getCompleter(type).recordEvent(System.nanoTime() - start);
+    }
+
+    /**
+     * records a criterion being performed
+     *
+     * @param type the criterion class
+     */
+    public void recordMatch(Class<? extends Criterion> type) {
+        getCompleter(type).recordMatch();
+    }
+
+    /**
+     * records an event dropped by the rate limit
+     *
+     * @param type the criterion class of the completer
+     */
+    public void recordSuppressed(Class<? extends Criterion> type) {
+        getCompleter(type).recordSuppressed();
+    }
+
+    public void recordProgressUpdate() {
+        progressUpdates.increment();
+    }
+
+    public void recordCacheLookup(boolean hit) {
+        if (hit) {
+            cacheHits.increment();
+        } else {
+            cacheMisses.increment();
+        }
+    }
+
+    public void recordCompletion() {
+        completions.increment();
+    }
+
+    public CompleterStats getCompleter(Class<? extends Criterion> type) {
+        CompleterStats stats = completers.get(type);
+        if (stats == null) {
+            stats = completers.computeIfAbsent(type, k -> new CompleterStats());
+        }
+        return stats;
+    }
+
+    public Map<Class<? extends Criterion>, CompleterStats> getCompleters() {
+        return Collections.unmodifiableMap(completers);
+    }
+
+    /**
+     * @return how many times the progress of a criterion changed
+     */
+    public long getProgressUpdates() {
+        return progressUpdates.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * @return the advancements completed by online players
+     */
+    public RateCounter getCompletions() {
+        return completions;
+    }
+
+    public Histogram getProgressLoad() {
+        return progressLoad;
+    }
+
+    public Histogram getProgressSave() {
+        return progressSave;
+    }
+
+    public Histogram getGuiRefresh() {
+        return guiRefresh;
+    }
+
+    public Histogram getVanillaSync() {
+        return vanillaSync;
+    }
+}
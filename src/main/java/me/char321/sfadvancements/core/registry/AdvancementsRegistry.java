@@ -7,6 +7,7 @@ import me.char321.sfadvancements.core.criteria.completer.CriterionCompleter;
 import org.bukkit.NamespacedKey;
 import org.bukkit.configuration.ConfigurationSection;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -15,14 +16,92 @@ import java.util.function.Function;
 
 public class AdvancementsRegistry {
     private final List<AdvancementGroup> advancementGroups = new ArrayList<>();
+    private final Map<String, AdvancementGroup> groupsById = new HashMap<>();
+    private volatile List<AdvancementGroup> groupsSnapshot = List.of();
     private final Map<NamespacedKey, Advancement> advancements = new HashMap<>();
-    private final Map<Class<? extends Criterion>, CriterionCompleter> completers = new HashMap<>();
-    private final Map<String, Function<ConfigurationSection, Criterion>> criteriontypes = new HashMap<>();
+    private final Map<Class<? extends Criterion>, CriterionCompleter> completers;
+    private final Map<String, Function<ConfigurationSection, Criterion>> criteriontypes;
 
+    public AdvancementsRegistry() {
+        this.completers = new HashMap<>();
+        this.criteriontypes = new HashMap<>();
+    }
+
+    /**
+     * creates an empty registry for reloading, which shares the completers and criterion types with the given registry,
+     * since those are registered by code and not loaded from the config
+     *
+     * @param previous the registry that is being replaced
+     */
+    public AdvancementsRegistry(AdvancementsRegistry previous) {
+        this.completers = previous.completers;
+        this.criteriontypes = previous.criteriontypes;
+    }
+
+    /**
+     * gets the registered groups, in the order they were registered <br>
+     * this is the live list, register groups with {@link #registerGroup(AdvancementGroup)} instead of adding to it.
+     * groups added to it directly are still picked up, but only when they're looked up or a snapshot is taken
+     *
+     * @return the registered groups
+     */
     public List<AdvancementGroup> getAdvancementGroups() {
         return advancementGroups;
     }
 
+    /**
+     * gets an immutable copy of the groups, in the order they were registered <br>
+     * the copy doesn't change when more groups are registered, so it can be indexed and iterated safely.
+     * the same copy is returned until the groups change
+     *
+     * @return the registered groups
+     */
+    public List<AdvancementGroup> getAdvancementGroupsSnapshot() {
+        List<AdvancementGroup> snapshot = groupsSnapshot;
+        if (snapshot.size() != advancementGroups.size()) {
+            indexGroups();
+            snapshot = groupsSnapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * @param id the id of the group
+     * @return the group with the given id, null otherwise
+     */
+    @Nullable
+    public AdvancementGroup getAdvancementGroup(String id) {
+        AdvancementGroup group = groupsById.get(id);
+        if (group == null) {
+            // it might have been added to the list directly
+            indexGroups();
+            group = groupsById.get(id);
+        }
+        return group;
+    }
+
+    private void indexGroups() {
+        for (AdvancementGroup group : advancementGroups) {
+            groupsById.putIfAbsent(group.getId(), group);
+        }
+        groupsSnapshot = List.copyOf(advancementGroups);
+    }
+
+    /**
+     * registers a group, groups with an id that is already registered are ignored
+     *
+     * @param group the group to register
+     * @return whether the group was registered
+     */
+    public boolean registerGroup(AdvancementGroup group) {
+        if (groupsById.putIfAbsent(group.getId(), group) != null) {
+            return false;
+        }
+        advancementGroups.add(group);
+        groupsSnapshot = List.copyOf(advancementGroups);
+        return true;
+    }
+
     public Map<NamespacedKey, Advancement> getAdvancements() {
         return advancements;
     }
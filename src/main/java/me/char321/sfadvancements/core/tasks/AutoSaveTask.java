@@ -1,17 +1,141 @@
 package me.char321.sfadvancements.core.tasks;
 
 import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.core.criteria.progress.PlayerProgress;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
+/**
+ * saves the cached progress, runs asynchronously once per second <br>
+ * when staggered, players are split into one slice per second of the autosave interval by their uuid hash,
+ * and each run only writes one slice. every player is still written once per interval,
+ * but the writes are spread out instead of happening in one burst. <br>
+ * the scheduler starts a run every second even if the last one is still going, so a run that overlaps another is skipped,
+ * and the slice it would have written is written by the next run instead
+ */
 public class AutoSaveTask implements Runnable {
+    private final int slices;
+    private final boolean staggered;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicInteger second = new AtomicInteger();
+    private final AtomicLong journalSegment = new AtomicLong(-1);
+    private final AtomicBoolean cycleFailed = new AtomicBoolean(false);
+
+    private final AtomicLong slicesWritten = new AtomicLong();
+    private final AtomicLong playersWritten = new AtomicLong();
+    private final AtomicLong totalSliceNanos = new AtomicLong();
+    private final AtomicLong maxSliceNanos = new AtomicLong();
+    private volatile long lastSliceNanos = 0;
+
+    /**
+     * @param interval the autosave interval in seconds, which is also the longest time a player's progress stays unsaved
+     * @param staggered whether to spread the writes across the interval
+     */
+    public AutoSaveTask(int interval, boolean staggered) {
+        this.slices = Math.max(1, interval);
+        this.staggered = staggered;
+    }
+
     @Override
     public void run() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            runSlice(second.getAndUpdate(s -> (s + 1) % slices));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void runSlice(int slice) {
+        if (!staggered) {
+            if (slice == 0) {
+                saveAll();
+            }
+            return;
+        }
+
+        if (slice == 0) {
+            // every player is written once before the next cycle starts, so the journal before this point can go then
+            journalSegment.set(SFAdvancements.getProgressJournal().rotate());
+            cycleFailed.set(false);
+        }
+
+        long start = System.nanoTime();
+        int written = 0;
+        for (Map.Entry<UUID, PlayerProgress> entry : SFAdvancements.getAdvManager().getPlayerMap().entrySet()) {
+            if (Math.floorMod(entry.getKey().hashCode(), slices) != slice) {
+                continue;
+            }
+            try {
+                entry.getValue().save();
+                written++;
+            } catch (IOException e) {
+                cycleFailed.set(true);
+                SFAdvancements.logger().log(Level.SEVERE, e, () -> "无法保存玩家 " + entry.getKey() + " 的进度!");
+            }
+        }
+        long time = System.nanoTime() - start;
+        lastSliceNanos = time;
+        totalSliceNanos.addAndGet(time);
+        maxSliceNanos.accumulateAndGet(time, Math::max);
+        slicesWritten.incrementAndGet();
+        playersWritten.addAndGet(written);
+
+        if (slice == slices - 1 && journalSegment.get() >= 0 && !cycleFailed.get()) {
+            SFAdvancements.getProgressJournal().truncate(journalSegment.get());
+        }
+    }
+
+    private void saveAll() {
+        long start = System.nanoTime();
         try {
             SFAdvancements.getAdvManager().save();
         } catch (IOException e) {
             SFAdvancements.logger().log(Level.SEVERE, e, () -> "无法保存进度!");
         }
+        long time = System.nanoTime() - start;
+        lastSliceNanos = time;
+        totalSliceNanos.addAndGet(time);
+        maxSliceNanos.accumulateAndGet(time, Math::max);
+        slicesWritten.incrementAndGet();
+        playersWritten.addAndGet(SFAdvancements.getAdvManager().getPlayerMap().size());
+    }
+
+    public long getSlicesWritten() {
+        return slicesWritten.get();
+    }
+
+    public long getPlayersWritten() {
+        return playersWritten.get();
+    }
+
+    /**
+     * @return how long writing the last slice took, in milliseconds
+     */
+    public double getLastSliceMillis() {
+        return lastSliceNanos / 1e6;
+    }
+
+    /**
+     * @return the average time writing a slice took, in milliseconds
+     */
+    public double getAverageSliceMillis() {
+        long count = slicesWritten.get();
+        return count == 0 ? 0 : totalSliceNanos.get() / 1e6 / count;
+    }
+
+    /**
+     * @return the longest time writing a slice took, in milliseconds
+     */
+    public double getMaxSliceMillis() {
+        return maxSliceNanos.get() / 1e6;
     }
 }
@@ -0,0 +1,120 @@
+package me.char321.sfadvancements.core.tasks;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.Advancement;
+import me.char321.sfadvancements.api.criteria.Criterion;
+import org.bukkit.command.CommandSender;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * removes advancements and criteria that no longer exist from the stored progress of every offline player,
+ * and normalizes the remaining entries <br>
+ * entries without any progress are dropped, and criteria progress is clamped to the criterion's count
+ */
+public class CompactProgressTask extends StoredProgressTask {
+    /**
+     * advancement key -> criterion id -> count, copied on the main thread so the registry isn't read off-thread
+     */
+    private final Map<String, Map<String, Integer>> definitions = new HashMap<>();
+    private final AtomicLong removedAdvancements = new AtomicLong();
+    private final AtomicLong removedCriteria = new AtomicLong();
+
+    public CompactProgressTask(CommandSender sender) {
+        super(sender, "压缩进度文件");
+        for (Advancement adv : SFAdvancements.getRegistry().getAdvancements().values()) {
+            Map<String, Integer> criteria = new HashMap<>();
+            for (Criterion criterion : adv.getCriteria()) {
+                criteria.put(criterion.getId(), criterion.getCount());
+            }
+            definitions.put(adv.getKey().toString(), criteria);
+        }
+    }
+
+    @Override
+    protected boolean edit(UUID player, JsonObject progress) {
+        boolean changed = false;
+        Iterator<Map.Entry<String, JsonElement>> iterator = progress.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, JsonElement> entry = iterator.next();
+            Map<String, Integer> criteria = definitions.get(entry.getKey());
+            if (criteria == null || !entry.getValue().isJsonObject()) {
+                iterator.remove();
+                removedAdvancements.incrementAndGet();
+                changed = true;
+                continue;
+            }
+
+            JsonObject advProgress = entry.getValue().getAsJsonObject();
+            changed |= normalize(advProgress, criteria);
+            if (isEmpty(advProgress)) {
+                iterator.remove();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean normalize(JsonObject advProgress, Map<String, Integer> definition) {
+        boolean changed = false;
+        JsonElement done = advProgress.get("done");
+        if (done == null || !done.isJsonPrimitive() || !done.getAsJsonPrimitive().isBoolean()) {
+            advProgress.addProperty("done", false);
+            changed = true;
+        }
+
+        JsonElement criteriaElement = advProgress.get("criteria");
+        if (criteriaElement == null || !criteriaElement.isJsonObject()) {
+            advProgress.add("criteria", new JsonObject());
+            return true;
+        }
+
+        Iterator<Map.Entry<String, JsonElement>> iterator = criteriaElement.getAsJsonObject().entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, JsonElement> entry = iterator.next();
+            Integer count = definition.get(entry.getKey());
+            if (count == null || !isNumber(entry.getValue())) {
+                iterator.remove();
+                removedCriteria.incrementAndGet();
+                changed = true;
+                continue;
+            }
+
+            int progress = entry.getValue().getAsInt();
+            int clamped = Math.max(0, Math.min(progress, count));
+            if (clamped != progress) {
+                entry.setValue(new JsonPrimitive(clamped));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static boolean isEmpty(JsonObject advProgress) {
+        if (advProgress.get("done").getAsBoolean()) {
+            return false;
+        }
+        for (Map.Entry<String, JsonElement> entry : advProgress.getAsJsonObject("criteria").entrySet()) {
+            if (entry.getValue().getAsInt() != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNumber(JsonElement element) {
+        return element.isJsonPrimitive() && element.getAsJsonPrimitive().isNumber();
+    }
+
+    @Override
+    protected String getSummary() {
+        return ", 移除未知进度 " + removedAdvancements.get() + " 个, 未知条件 " + removedCriteria.get() + " 个";
+    }
+}
@@ -0,0 +1,120 @@
+package me.char321.sfadvancements.core.tasks;
+
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.Advancement;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * runs {@link Advancement#onComplete(Player)} outside of the event that completed the advancement <br>
+ * completions are handled in the order they were queued, so a player's completions never get reordered,
+ * and the queue is drained on the main thread for at most the configured time every tick.
+ * completions of players that quit before they were handled are kept until the player joins again
+ */
+public class CompletionTask implements Runnable, Listener {
+    private final Queue<Completion> queue = new ConcurrentLinkedQueue<>();
+    // only touched on the main thread
+    private final Map<UUID, List<Completion>> offline = new HashMap<>();
+
+    /**
+     * queues the rewards, announcement and vanilla sync for a completed advancement
+     *
+     * @param player the uuid of the player that completed the advancement
+     * @param advancement the completed advancement
+     */
+    public void queue(UUID player, Advancement advancement) {
+        queue(player, advancement, true);
+    }
+
+    /**
+     * queues the rewards and vanilla sync for a completed advancement
+     *
+     * @param player the uuid of the player that completed the advancement
+     * @param advancement the completed advancement
+     * @param announce whether to announce the completion, false if it's announced together with others
+     */
+    public void queue(UUID player, Advancement advancement, boolean announce) {
+        SFAdvancements.getStats().recordCompletion();
+        queue.add(new Completion(player, advancement, announce));
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public void run() {
+        if (queue.isEmpty()) {
+            return;
+        }
+
+        long budget = TimeUnit.MILLISECONDS.toNanos(
+                Math.max(1, SFAdvancements.getMainConfig().getConfiguration().getInt("completion-budget-ms", 5)));
+        long deadline = System.nanoTime() + budget;
+        Completion completion;
+        while ((completion = queue.poll()) != null) {
+            complete(completion);
+            if (System.nanoTime() >= deadline) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * handles every queued completion right away, without a time budget <br>
+     * used on shutdown, since the advancements are already saved as completed and nothing would handle them later.
+     * nothing is scheduled, the vanilla advancement is awarded directly since this runs on the main thread
+     */
+    public void drain() {
+        Completion completion;
+        while ((completion = queue.poll()) != null) {
+            complete(completion);
+        }
+    }
+
+    private void complete(Completion completion) {
+        Player p = Bukkit.getPlayer(completion.player);
+        if (p == null || !p.isOnline()) {
+            offline.computeIfAbsent(completion.player, k -> new ArrayList<>()).add(completion);
+            return;
+        }
+        try {
+            completion.advancement.onComplete(p, completion.announce);
+        } catch (Exception e) {
+            SFAdvancements.logger().log(Level.SEVERE, e, () -> "处理进度完成时发生错误");
+        }
+    }
+
+    @EventHandler
+    public void onJoin(PlayerJoinEvent e) {
+        List<Completion> completions = offline.remove(e.getPlayer().getUniqueId());
+        if (completions != null) {
+            queue.addAll(completions);
+        }
+    }
+
+    private static class Completion {
+        final UUID player;
+        final Advancement advancement;
+        final boolean announce;
+
+        Completion(UUID player, Advancement advancement, boolean announce) {
+            this.player = player;
+            this.advancement = advancement;
+            this.announce = announce;
+        }
+    }
+}
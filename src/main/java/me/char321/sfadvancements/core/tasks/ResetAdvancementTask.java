@@ -0,0 +1,40 @@
+package me.char321.sfadvancements.core.tasks;
+
+import com.google.gson.JsonObject;
+import me.char321.sfadvancements.SFAdvancements;
+import org.bukkit.NamespacedKey;
+import org.bukkit.command.CommandSender;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * clears the progress of one advancement for every player, including players that are offline
+ */
+public class ResetAdvancementTask extends StoredProgressTask {
+    private final NamespacedKey advancement;
+
+    public ResetAdvancementTask(CommandSender sender, NamespacedKey advancement) {
+        super(sender, "重置进度 " + advancement);
+        this.advancement = advancement;
+    }
+
+    @Override
+    protected void onStart(Set<UUID> cached) {
+        SFAdvancements.getAdvManager().revoke(cached, List.of(advancement));
+    }
+
+    @Override
+    protected boolean edit(UUID player, JsonObject progress) {
+        return progress.remove(advancement.toString()) != null;
+    }
+
+    @Override
+    protected void onFinish() {
+        // players that joined while the job was running may have loaded their progress before it was reset
+        Set<UUID> cached = new HashSet<>(SFAdvancements.getAdvManager().getPlayerMap().keySet());
+        SFAdvancements.getAdvManager().revoke(cached, List.of(advancement));
+    }
+}
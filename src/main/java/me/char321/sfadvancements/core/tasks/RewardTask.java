@@ -0,0 +1,135 @@
+package me.char321.sfadvancements.core.tasks;
+
+import me.char321.sfadvancements.SFAdvancements;
+import org.bukkit.Bukkit;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * dispatches reward commands on the main thread, at most a configured number per tick <br>
+ * commands are dispatched in the order they were queued, so a player's rewards stay in order.
+ * if the queue is full, commands wait in an unbounded overflow queue behind it instead of being dropped or dispatched right away,
+ * and how many overflowed is logged once per tick
+ */
+public class RewardTask implements Runnable {
+    private final BlockingQueue<PendingCommand> queue;
+    private final Queue<PendingCommand> overflow = new ConcurrentLinkedQueue<>();
+    private final int commandsPerTick;
+
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicInteger overflowedSinceLog = new AtomicInteger();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public RewardTask(int capacity, int commandsPerTick) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.commandsPerTick = Math.max(1, commandsPerTick);
+    }
+
+    /**
+     * queues a console command
+     *
+     * @param command the command to dispatch, without the slash
+     */
+    public void queue(String command) {
+        PendingCommand pending = new PendingCommand(command, System.nanoTime());
+        // once something overflowed, later commands queue behind it so they stay in order
+        if (!overflow.isEmpty() || !queue.offer(pending)) {
+            overflowed.incrementAndGet();
+            overflowedSinceLog.incrementAndGet();
+            overflow.add(pending);
+        }
+    }
+
+    @Override
+    public void run() {
+        int count = overflowedSinceLog.getAndSet(0);
+        if (count > 0) {
+            SFAdvancements.warn("奖励指令队列已满, " + count + " 条指令进入溢出队列, 当前共 " + getQueueDepth() + " 条待执行");
+        }
+        for (int i = 0; i < commandsPerTick; i++) {
+            PendingCommand pending = queue.poll();
+            if (pending == null) {
+                break;
+            }
+            dispatch(pending);
+        }
+        PendingCommand pending;
+        while ((pending = overflow.peek()) != null && queue.offer(pending)) {
+            overflow.poll();
+        }
+    }
+
+    /**
+     * dispatches every queued command right away, used on shutdown so no rewards are lost
+     */
+    public void drain() {
+        PendingCommand pending;
+        while ((pending = queue.poll()) != null) {
+            dispatch(pending);
+        }
+        while ((pending = overflow.poll()) != null) {
+            dispatch(pending);
+        }
+    }
+
+    private void dispatch(PendingCommand pending) {
+        long latency = System.nanoTime() - pending.queuedAt;
+        totalLatencyNanos.addAndGet(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        dispatched.incrementAndGet();
+        dispatch(pending.command);
+    }
+
+    private static void dispatch(String command) {
+        try {
+            Bukkit.getServer().dispatchCommand(Bukkit.getServer().getConsoleSender(), command);
+        } catch (Exception e) {
+            SFAdvancements.logger().log(Level.SEVERE, e, () -> "执行奖励指令时发生错误: " + command);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size() + overflow.size();
+    }
+
+    public long getDispatched() {
+        return dispatched.get();
+    }
+
+    public long getOverflowed() {
+        return overflowed.get();
+    }
+
+    /**
+     * @return the average time commands waited in the queue, in milliseconds
+     */
+    public double getAverageLatencyMillis() {
+        long count = dispatched.get();
+        return count == 0 ? 0 : totalLatencyNanos.get() / 1e6 / count;
+    }
+
+    /**
+     * @return the longest time a command waited in the queue, in milliseconds
+     */
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1e6;
+    }
+
+    private static class PendingCommand {
+        final String command;
+        final long queuedAt;
+
+        PendingCommand(String command, long queuedAt) {
+            this.command = command;
+            this.queuedAt = queuedAt;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package me.char321.sfadvancements.core.tasks;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.core.criteria.progress.PlayerProgress;
+import me.char321.sfadvancements.util.Utils;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * an offline job that rewrites the stored progress files of every player <br>
+ * files are streamed from the advancements folder in fixed size chunks and each chunk is processed in parallel,
+ * so no more than one chunk of records is held in memory. players that are cached when the job starts are skipped,
+ * since their progress on disk will be overwritten by the next save anyway.
+ * only one job can run at a time
+ */
+public abstract class StoredProgressTask implements Runnable {
+    private static final AtomicBoolean RUNNING = new AtomicBoolean(false);
+    private static final int CHUNK_SIZE = 256;
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+
+    private final CommandSender sender;
+    private final String name;
+    private Set<UUID> skipped;
+
+    protected final AtomicLong processed = new AtomicLong();
+    protected final AtomicLong changed = new AtomicLong();
+    protected final AtomicLong failed = new AtomicLong();
+    private final AtomicLong bytesBefore = new AtomicLong();
+    private final AtomicLong bytesAfter = new AtomicLong();
+
+    protected StoredProgressTask(CommandSender sender, String name) {
+        this.sender = sender;
+        this.name = name;
+    }
+
+    /**
+     * starts the job asynchronously, must be called on the main thread
+     *
+     * @return false if another job is already running
+     */
+    public boolean start() {
+        if (!RUNNING.compareAndSet(false, true)) {
+            return false;
+        }
+        skipped = new HashSet<>(SFAdvancements.getAdvManager().getPlayerMap().keySet());
+        onStart(skipped);
+        Bukkit.getScheduler().runTaskAsynchronously(SFAdvancements.instance(), this);
+        return true;
+    }
+
+    /**
+     * edits the stored progress of a player
+     *
+     * @param player the uuid of the player
+     * @param progress the stored progress, which can be modified
+     * @return whether the progress was modified and should be written back
+     */
+    protected abstract boolean edit(UUID player, JsonObject progress);
+
+    /**
+     * called on the main thread before the job starts
+     *
+     * @param cached the players whose progress is cached and won't be processed
+     */
+    protected void onStart(Set<UUID> cached) {
+
+    }
+
+    /**
+     * called on the main thread after the job finished
+     */
+    protected void onFinish() {
+
+    }
+
+    /**
+     * @return extra information for the summary that is sent when the job finishes
+     */
+    protected String getSummary() {
+        return "";
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        long lastReport = start;
+        int parallelism = Math.max(1, SFAdvancements.getMainConfig().getConfiguration().getInt("storage-job-threads",
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2)));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Path folder = SFAdvancements.instance().getDataFolder().toPath().resolve("advancements");
+        try {
+            if (!Files.isDirectory(folder)) {
+                return;
+            }
+
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*.json")) {
+                Iterator<Path> iterator = files.iterator();
+                List<Path> chunk = new ArrayList<>(CHUNK_SIZE);
+                while (iterator.hasNext()) {
+                    chunk.add(iterator.next());
+                    if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                        List<Path> current = chunk;
+                        pool.submit(() -> current.parallelStream().forEach(this::processFile)).get();
+                        chunk = new ArrayList<>(CHUNK_SIZE);
+
+                        long now = System.nanoTime();
+                        if (now - lastReport >= REPORT_INTERVAL) {
+                            lastReport = now;
+                            report(name + "中: 已处理 " + processed.get() + " 个玩家, " + formatRate(start, now));
+                        }
+                    }
+                }
+            }
+        } catch (IOException | ExecutionException e) {
+            SFAdvancements.logger().log(Level.SEVERE, e, () -> name + "时发生错误");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdown();
+            long now = System.nanoTime();
+            report(name + "已完成: 处理 " + processed.get() + " 个玩家, 修改 " + changed.get() + " 个, 失败 " + failed.get()
+                    + " 个, 释放 " + (bytesBefore.get() - bytesAfter.get()) + " 字节, 用时 " + TimeUnit.NANOSECONDS.toMillis(now - start) + "ms, "
+                    + formatRate(start, now) + getSummary());
+            Utils.runSync(() -> {
+                try {
+                    onFinish();
+                } finally {
+                    RUNNING.set(false);
+                }
+            });
+        }
+    }
+
+    private void processFile(Path file) {
+        String fileName = file.getFileName().toString();
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(fileName.substring(0, fileName.length() - ".json".length()));
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        if (skipped.contains(uuid)) {
+            return;
+        }
+
+        try {
+            JsonObject progress;
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                JsonElement element = JsonParser.parseReader(reader);
+                if (!element.isJsonObject()) {
+                    throw new IOException("无效的进度文件");
+                }
+                progress = element.getAsJsonObject();
+            }
+            processed.incrementAndGet();
+
+            if (edit(uuid, progress)) {
+                // the player may have joined since the job started, their own saves win then
+                if (SFAdvancements.getAdvManager().getPlayerMap().containsKey(uuid)) {
+                    return;
+                }
+                bytesBefore.addAndGet(Files.size(file));
+                write(file, uuid, progress.toString());
+                bytesAfter.addAndGet(Files.size(file));
+                changed.incrementAndGet();
+
+                // a player that joined between the check and the write loaded the old file,
+                // so write their progress again instead of leaving the job's copy over a newer save
+                PlayerProgress joined = SFAdvancements.getAdvManager().getPlayerMap().get(uuid);
+                if (joined != null) {
+                    joined.save();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            SFAdvancements.logger().log(Level.WARNING, e, () -> name + "时无法处理 " + file);
+        }
+    }
+
+    private static void write(Path file, UUID uuid, String content) throws IOException {
+        // not the temp file PlayerProgress saves through, so a save running at the same time can't mix with this one
+        Path temp = Files.createTempFile(file.getParent(), uuid + ".", ".job");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(content);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private String formatRate(long start, long now) {
+        double seconds = Math.max(1, now - start) / 1e9;
+        return String.format("%.1f 个/秒", processed.get() / seconds);
+    }
+
+    private void report(String message) {
+        SFAdvancements.info(message);
+        Utils.runSync(() -> sender.sendMessage(message));
+    }
+}
@@ -0,0 +1,101 @@
+package me.char321.sfadvancements.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * a hashed timer wheel for many timeouts that rarely fire <br>
+ * scheduling and cancelling take constant time, and each tick only looks at the timeouts in one slot.
+ * timeouts more than one turn of the wheel away stay in their slot until the turn they are due. not thread safe
+ *
+ * @param <T> the values that are handed back when a timeout fires
+ */
+public class TimerWheel<T> {
+    private final List<List<Timeout<T>>> slots;
+    private final int mask;
+    private long tick = 0;
+    private int size = 0;
+
+    /**
+     * @param slots the number of slots, rounded up to a power of two
+     */
+    public TimerWheel(int slots) {
+        int n = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.slots = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            this.slots.add(new ArrayList<>());
+        }
+        this.mask = n - 1;
+    }
+
+    /**
+     * @param delay in how many ticks the timeout fires, at least 1
+     * @param value the value handed back when it fires
+     * @return the timeout, which can be cancelled
+     */
+    public Timeout<T> schedule(long delay, T value) {
+        Timeout<T> timeout = new Timeout<>(tick + Math.max(1, delay), value);
+        slots.get((int) (timeout.deadline & mask)).add(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * moves the wheel forward by one tick
+     *
+     * @param action called with the value of every timeout that is due, after the slot was processed,
+     *               so it may schedule new timeouts
+     */
+    public void advance(Consumer<T> action) {
+        tick++;
+        List<Timeout<T>> slot = slots.get((int) (tick & mask));
+        if (slot.isEmpty()) {
+            return;
+        }
+
+        List<T> due = null;
+        int kept = 0;
+        for (Timeout<T> timeout : slot) {
+            if (timeout.cancelled) {
+                size--;
+            } else if (timeout.deadline <= tick) {
+                size--;
+                timeout.cancelled = true;
+                if (due == null) {
+                    due = new ArrayList<>();
+                }
+                due.add(timeout.value);
+            } else {
+                slot.set(kept++, timeout);
+            }
+        }
+        slot.subList(kept, slot.size()).clear();
+
+        if (due != null) {
+            due.forEach(action);
+        }
+    }
+
+    /**
+     * @return how many timeouts are scheduled, cancelled ones are counted until their slot comes around
+     */
+    public int size() {
+        return size;
+    }
+
+    public static class Timeout<T> {
+        private final long deadline;
+        private final T value;
+        private boolean cancelled = false;
+
+        private Timeout(long deadline, T value) {
+            this.deadline = deadline;
+            this.value = value;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
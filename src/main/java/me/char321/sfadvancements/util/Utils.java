@@ -6,6 +6,8 @@ import net.md_5.bungee.api.chat.TranslatableComponent;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemFlag;
@@ -13,6 +15,10 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import net.guizhanss.guizhanlib.minecraft.utils.compatibility.EnchantmentX;
 
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -36,6 +42,22 @@ public class Utils {
         im.addItemFlags(ItemFlag.HIDE_ENCHANTS);
     }
 
+    /**
+     * finds an online player, or an offline player that has played before
+     *
+     * @param name the name of the player
+     * @return the player, or null if no such player has played on the server
+     */
+    @Nullable
+    public static OfflinePlayer findPlayer(String name) {
+        Player online = Bukkit.getPlayer(name);
+        if (online != null) {
+            return online;
+        }
+        OfflinePlayer offline = Bukkit.getOfflinePlayerIfCached(name);
+        return offline != null && offline.hasPlayedBefore() ? offline : null;
+    }
+
     public static boolean keyIsSFA(NamespacedKey key) {
         return key.getNamespace().equals(SFAdvancements.instance().getName().toLowerCase(Locale.ROOT));
     }
@@ -85,6 +107,26 @@ public class Utils {
         }
     }
 
+    /**
+     * hashes a string with sha-256
+     *
+     * @param content the string to hash
+     * @return the hash as a hex string
+     */
+    public static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("sha-256 is not supported", e);
+        }
+    }
+
     public static void runSync(Runnable runnable) {
         Bukkit.getScheduler().runTask(SFAdvancements.instance(), runnable);
     }
@@ -0,0 +1,136 @@
+package me.char321.sfadvancements.vanilla;
+
+import com.google.gson.JsonObject;
+import me.char321.sfadvancements.SFAdvancements;
+import org.bukkit.NamespacedKey;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * writes the vanilla advancements as a datapack in the world's datapacks folder,
+ * so the server loads them in its normal datapack pass instead of through {@code Bukkit.getUnsafe()} <br>
+ * files are only rewritten when their content changes
+ */
+class DatapackExporter {
+    private static final String PACK_NAME = "sfadvancements";
+    private static final int PACK_FORMAT = 48;
+
+    private final File packFolder;
+    private final String advancementFolder;
+    private int written = 0;
+    private int deleted = 0;
+
+    /**
+     * @param datapacksFolder the datapacks folder of the main world
+     * @param pluralFolder whether advancements are in "advancements" (before 1.21) instead of "advancement"
+     */
+    DatapackExporter(File datapacksFolder, boolean pluralFolder) {
+        this.packFolder = new File(datapacksFolder, PACK_NAME);
+        this.advancementFolder = pluralFolder ? "advancements" : "advancement";
+    }
+
+    /**
+     * writes the datapack
+     *
+     * @param advancements the generated json of every advancement
+     * @return whether any file was changed
+     */
+    boolean export(Map<NamespacedKey, JsonObject> advancements) {
+        written = 0;
+        deleted = 0;
+
+        writeIfChanged(new File(packFolder, "pack.mcmeta"), buildPackMeta());
+
+        Set<Path> expected = new HashSet<>();
+        for (Map.Entry<NamespacedKey, JsonObject> entry : advancements.entrySet()) {
+            File file = getFile(entry.getKey());
+            expected.add(file.toPath().toAbsolutePath().normalize());
+            writeIfChanged(file, entry.getValue().toString());
+        }
+
+        deleteStale(expected);
+        return written > 0 || deleted > 0;
+    }
+
+    int getWritten() {
+        return written;
+    }
+
+    int getDeleted() {
+        return deleted;
+    }
+
+    private File getFile(NamespacedKey key) {
+        File namespaceFolder = new File(new File(packFolder, "data"), key.getNamespace());
+        return new File(new File(namespaceFolder, advancementFolder), key.getKey() + ".json");
+    }
+
+    private void writeIfChanged(File file, String content) {
+        try {
+            Path path = file.toPath();
+            if (Files.exists(path)) {
+                String existing = Files.readString(path, StandardCharsets.UTF_8);
+                if (existing.equals(content)) {
+                    return;
+                }
+            }
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, content, StandardCharsets.UTF_8);
+            written++;
+        } catch (IOException e) {
+            SFAdvancements.logger().log(Level.WARNING, "无法写入数据包文件 " + file, e);
+        }
+    }
+
+    private void deleteStale(Set<Path> expected) {
+        Path data = new File(packFolder, "data").toPath();
+        if (!Files.isDirectory(data)) {
+            return;
+        }
+
+        List<Path> stale;
+        try (Stream<Path> files = Files.walk(data)) {
+            stale = files.filter(Files::isRegularFile)
+                    .filter(p -> p.toString().endsWith(".json"))
+                    .filter(p -> !expected.contains(p.toAbsolutePath().normalize()))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            SFAdvancements.logger().log(Level.WARNING, "无法清理数据包中已删除的进度", e);
+            return;
+        }
+
+        for (Path path : stale) {
+            try {
+                Files.delete(path);
+                deleted++;
+            } catch (IOException e) {
+                SFAdvancements.logger().log(Level.WARNING, "无法删除数据包文件 " + path, e);
+            }
+        }
+    }
+
+    private static String buildPackMeta() {
+        JsonObject pack = new JsonObject();
+        pack.addProperty("pack_format", PACK_FORMAT);
+        JsonObject supported = new JsonObject();
+        supported.addProperty("min_inclusive", 18);
+        supported.addProperty("max_inclusive", Integer.MAX_VALUE);
+        pack.add("supported_formats", supported);
+        pack.addProperty("description", "SlimefunAdvancements generated advancements");
+
+        JsonObject root = new JsonObject();
+        root.add("pack", pack);
+        return root.toString();
+    }
+}
@@ -0,0 +1,83 @@
+package me.char321.sfadvancements.vanilla;
+
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * caches the no-arg methods that are looked up reflectively for version specific apis <br>
+ * each (class, method names) pair is only resolved once, including when none of the methods exist
+ */
+final class MethodCache {
+    private static final MethodType GENERIC = MethodType.methodType(Object.class, Object.class);
+    private static final Map<Key, Optional<MethodHandle>> CACHE = new ConcurrentHashMap<>();
+
+    private MethodCache() {}
+
+    /**
+     * finds the first public no-arg method with one of the given names
+     *
+     * @param type the class to look in
+     * @param names the method names to try, in order
+     * @return a handle taking the target and returning the result as an Object, or null if no method was found
+     */
+    @Nullable
+    static MethodHandle find(Class<?> type, String... names) {
+        return CACHE.computeIfAbsent(new Key(type, List.of(names)), MethodCache::resolve).orElse(null);
+    }
+
+    /**
+     * finds and invokes a method, see {@link #find(Class, String...)}
+     *
+     * @return the result of the method, or null if no method was found
+     */
+    @Nullable
+    static Object invoke(Object target, String... names) throws Exception {
+        MethodHandle handle = find(target.getClass(), names);
+        return handle == null ? null : invoke(handle, target);
+    }
+
+    @Nullable
+    static Object invoke(MethodHandle handle, Object target) throws Exception {
+        try {
+            return (Object) handle.invokeExact(target);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static Optional<MethodHandle> resolve(Key key) {
+        for (String name : key.names) {
+            try {
+                Method method = key.type.getMethod(name);
+                if (method.getParameterCount() != 0) {
+                    continue;
+                }
+                return Optional.of(unreflect(method).asType(GENERIC));
+            } catch (NoSuchMethodException | IllegalAccessException | RuntimeException ignored) {
+                // Expected on older versions, try next method name.
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        try {
+            return MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // public method declared in a non-public class
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        }
+    }
+
+    private record Key(Class<?> type, List<String> names) {}
+}
@@ -0,0 +1,15 @@
+package me.char321.sfadvancements.vanilla;
+
+import io.papermc.paper.event.server.ServerResourcesReloadedEvent;
+import me.char321.sfadvancements.SFAdvancements;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+public class ResourcesReloadListener implements Listener {
+    @EventHandler
+    public void onResourcesReloaded(ServerResourcesReloadedEvent e) {
+        if (SFAdvancements.getMainConfig().getBoolean("use-advancements-api") && SFAdvancements.getMainConfig().getBoolean("export-datapack")) {
+            SFAdvancements.getVanillaHook().onDatapackLoaded();
+        }
+    }
+}
@@ -16,29 +16,42 @@ import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.advancement.AdvancementProgress;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.inventory.meta.SkullMeta;
+import org.bukkit.plugin.Plugin;
 import org.bukkit.profile.PlayerProfile;
 import org.bukkit.profile.PlayerTextures;
 
 import javax.annotation.Nullable;
-import java.lang.reflect.Method;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 // Must be accessed from the main server thread only.
 public class VanillaHook {
     private boolean initialized = false;
     private final Set<NamespacedKey> loadedKeys = ConcurrentHashMap.newKeySet();
+    // the keys written to the datapack by the last export
+    private Set<NamespacedKey> exportedKeys = Set.of();
+    private final Map<NamespacedKey, String> registeredHashes = new HashMap<>();
+    private final Map<UUID, VanillaSyncTask> syncTasks = new HashMap<>();
     private BackgroundStyle backgroundStyle = BackgroundStyle.RESOURCE_LOCATION;
     private static final boolean SUPPORTS_NEW_CUSTOM_MODEL_DATA = detectNewCustomModelDataSupport();
 
@@ -49,27 +62,167 @@ public class VanillaHook {
 
         Utils.listen(new PlayerJoinListener());
         Utils.listen(new AdvancementListener());
+        Utils.listen(new ResourcesReloadListener());
         reload();
     }
 
+    /**
+     * registers the sfa groups and advancements as vanilla advancements <br>
+     * after the first load, only advancements whose generated json changed are re-registered,
+     * and only removed advancements are removed
+     */
     public void reload() {
         if (!initialized) {
             init();
+            return;
         }
-        removeExistingAdvancements();
-        loadedKeys.clear();
         logVanillaRootBackground();
-        registerGroups();
-        registerAdvancements();
 
+        long start = System.nanoTime();
+        VanillaJsonCache cache = null;
+        if (SFAdvancements.getMainConfig().getConfiguration().getBoolean("cache-vanilla-advancements", true)) {
+            cache = new VanillaJsonCache(new File(SFAdvancements.instance().getDataFolder(), "cache/vanilla-advancements.json"), getCacheVersion());
+            cache.load();
+        }
+        Set<NamespacedKey> groupKeys = new HashSet<>();
+        Map<NamespacedKey, JsonObject> advancements = new LinkedHashMap<>();
+        buildGroups(advancements, groupKeys, cache);
+        buildAdvancements(advancements, cache);
+        String took = "已生成 " + advancements.size() + " 个原版进度, 用时 " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms";
+        if (cache != null) {
+            cache.save();
+            took += " (缓存命中 " + cache.getHits() + ", 未命中 " + cache.getMisses() + ")";
+        }
+        SFAdvancements.info(took);
+
+        if (SFAdvancements.getMainConfig().getBoolean("export-datapack")) {
+            exportDatapack(advancements);
+            return;
+        }
+
+        Map<NamespacedKey, String> hashes = new HashMap<>();
+        for (Map.Entry<NamespacedKey, JsonObject> entry : advancements.entrySet()) {
+            hashes.put(entry.getKey(), Utils.sha256(entry.getValue().toString()));
+        }
+
+        Set<NamespacedKey> toLoad = new LinkedHashSet<>();
+        boolean removedAny = false;
+        if (registeredHashes.isEmpty()) {
+            // we don't know what a previous run left behind, so start from scratch
+            removeExistingAdvancements(advancements.keySet());
+            // switching to the datapack again has to clean up the advancements injected from now on
+            getDatapackMarker().delete();
+            loadedKeys.clear();
+            toLoad.addAll(advancements.keySet());
+        } else {
+            Set<NamespacedKey> toRemove = new HashSet<>();
+            for (NamespacedKey key : registeredHashes.keySet()) {
+                if (!hashes.containsKey(key)) {
+                    toRemove.add(key);
+                }
+            }
+            for (Map.Entry<NamespacedKey, String> entry : hashes.entrySet()) {
+                String oldHash = registeredHashes.get(entry.getKey());
+                if (oldHash == null) {
+                    toLoad.add(entry.getKey());
+                } else if (!oldHash.equals(entry.getValue())) {
+                    toRemove.add(entry.getKey());
+                    toLoad.add(entry.getKey());
+                }
+            }
+            // children are dropped by the server when their parent is reloaded, so register them again too
+            for (Map.Entry<NamespacedKey, JsonObject> entry : advancements.entrySet()) {
+                NamespacedKey parent = getParent(entry.getValue());
+                if (parent != null && toRemove.contains(parent) && toLoad.add(entry.getKey())) {
+                    toRemove.add(entry.getKey());
+                }
+            }
+            removeAdvancements(toRemove, toLoad);
+            removedAny = !toRemove.isEmpty();
+            loadedKeys.removeAll(toRemove);
+            registeredHashes.keySet().removeAll(toRemove);
+        }
+
+        for (Map.Entry<NamespacedKey, JsonObject> entry : advancements.entrySet()) {
+            NamespacedKey key = entry.getKey();
+            if (!toLoad.contains(key)) {
+                continue;
+            }
+            if (loadAdvancement(key, entry.getValue())) {
+                registeredHashes.put(key, hashes.get(key));
+            }
+            if (groupKeys.contains(key)) {
+                logResolvedBackgroundFromServer(key);
+            }
+        }
+
+        if (SFAdvancements.getMainConfig().getBoolean("debug")) {
+            SFAdvancements.info("原版进度: 共 " + advancements.size() + " 个, 重新注册 " + toLoad.size() + " 个");
+        }
+        if (removedAny || !toLoad.isEmpty()) {
+            for (Player p : Bukkit.getOnlinePlayers()) {
+                syncProgress(p);
+            }
+        }
+    }
+
+    private void exportDatapack(Map<NamespacedKey, JsonObject> advancements) {
+        File datapacks = new File(Bukkit.getWorlds().get(0).getWorldFolder(), "datapacks");
+        DatapackExporter exporter = new DatapackExporter(datapacks, !isVersionAtLeast(1, 21, 0));
+        boolean exported = exporter.export(advancements);
+        exportedKeys = Set.copyOf(advancements.keySet());
+        if (exported) {
+            SFAdvancements.info("已更新进度数据包: 写入 " + exporter.getWritten() + " 个文件, 删除 " + exporter.getDeleted() + " 个文件");
+        }
+
+        File marker = getDatapackMarker();
+        if (!marker.exists()) {
+            // clean up advancements injected at runtime when switching to the datapack.
+            // only done once, afterwards they'd be the ones loaded from the datapack.
+            // the datapack is written first, so if the data is reloaded after removing them it's loaded right away
+            removeExistingAdvancements(Set.of());
+            try {
+                marker.getParentFile().mkdirs();
+                marker.createNewFile();
+            } catch (IOException e) {
+                SFAdvancements.warn("无法创建文件 " + marker + ": " + e.getMessage());
+            }
+            if (!SFAdvancements.getMainConfig().getBoolean("reload-data-on-adv-remove")) {
+                SFAdvancements.warn("已切换到数据包模式并移除运行时注册的原版进度, 在服务器重启或执行 /minecraft:reload 之前玩家将看不到这些进度");
+            }
+        } else if (exported) {
+            SFAdvancements.info("改动将在服务器重启或执行 /minecraft:reload 后生效");
+        }
+
+        refreshExportedKeys();
+    }
+
+    /**
+     * called after the server reloaded its data, which loads the exported datapack, so players see the new advancements
+     */
+    public void onDatapackLoaded() {
+        refreshExportedKeys();
         for (Player p : Bukkit.getOnlinePlayers()) {
             syncProgress(p);
         }
     }
 
-    private void removeExistingAdvancements() {
+    private void refreshExportedKeys() {
+        loadedKeys.clear();
+        for (NamespacedKey key : exportedKeys) {
+            if (Bukkit.getAdvancement(key) != null) {
+                loadedKeys.add(key);
+            }
+        }
+    }
+
+    private static File getDatapackMarker() {
+        return new File(SFAdvancements.instance().getDataFolder(), "cache/datapack-exported");
+    }
+
+    private void removeExistingAdvancements(Set<NamespacedKey> readded) {
         Set<NamespacedKey> keysToRemove = new HashSet<>();
-        for (AdvancementGroup group : SFAdvancements.getRegistry().getAdvancementGroups()) {
+        for (AdvancementGroup group : SFAdvancements.getRegistry().getAdvancementGroupsSnapshot()) {
             keysToRemove.add(Utils.keyOf(group.getId()));
         }
         for (Advancement adv : SFAdvancements.getRegistry().getAdvancements().values()) {
@@ -81,11 +234,22 @@ public class VanillaHook {
                 keysToRemove.add(key);
             }
         });
+        removeAdvancements(keysToRemove, readded);
+    }
 
+    /**
+     * removes advancements from the server <br>
+     * the data is only reloaded if an advancement was removed for good,
+     * advancements that are loaded again right after are replaced without it
+     *
+     * @param keysToRemove the advancements to remove
+     * @param readded the advancements that are loaded again right after
+     */
+    private void removeAdvancements(Set<NamespacedKey> keysToRemove, Set<NamespacedKey> readded) {
         boolean removedAny = false;
         for (NamespacedKey key : keysToRemove) {
             try {
-                if (Bukkit.getUnsafe().removeAdvancement(key)) {
+                if (Bukkit.getUnsafe().removeAdvancement(key) && !readded.contains(key)) {
                     removedAny = true;
                 }
             } catch (Exception e) {
@@ -97,9 +261,19 @@ public class VanillaHook {
         }
     }
 
-    private void registerGroups() {
-        for (AdvancementGroup group : SFAdvancements.getRegistry().getAdvancementGroups()) {
+    private void buildGroups(Map<NamespacedKey, JsonObject> out, Set<NamespacedKey> groupKeys, @Nullable VanillaJsonCache cache) {
+        for (AdvancementGroup group : SFAdvancements.getRegistry().getAdvancementGroupsSnapshot()) {
             NamespacedKey key = Utils.keyOf(group.getId());
+            groupKeys.add(key);
+            String source = cache == null ? null : getSourceHash(SFAdvancements.instance().getGroupsConfig(), group.getId(), group.getDisplayItem());
+            if (source != null) {
+                JsonObject cached = cache.get(key, source);
+                if (cached != null) {
+                    out.put(key, cached);
+                    continue;
+                }
+            }
+
             ItemStack item = safeDisplayItem(group.getDisplayItem());
             ItemMeta meta = item.getItemMeta();
             JsonElement title = meta != null && meta.hasDisplayName()
@@ -119,27 +293,44 @@ public class VanillaHook {
                     resolvedBackground,
                     false);
             logGroupDebug(group.getId(), rawBackground, resolvedBackground, key, json);
-            loadAdvancement(key, json);
-            logResolvedBackgroundFromServer(key);
+            out.put(key, json);
+            if (source != null) {
+                cache.put(key, source, json);
+            }
         }
     }
 
-    private void registerAdvancements() {
+    private void buildAdvancements(Map<NamespacedKey, JsonObject> out, @Nullable VanillaJsonCache cache) {
         for (Map.Entry<NamespacedKey, Advancement> entry : SFAdvancements.getRegistry().getAdvancements().entrySet()) {
-            registerAdvancement(entry.getValue());
+            buildAdvancement(entry.getValue(), out, cache);
         }
     }
 
-    private void registerAdvancement(Advancement advancement) {
+    /**
+     * builds the json of an advancement, making sure its parent comes before it in the map
+     */
+    private void buildAdvancement(Advancement advancement, Map<NamespacedKey, JsonObject> out, @Nullable VanillaJsonCache cache) {
         if (advancement == null)
             return;
-        if (loadedKeys.contains(advancement.getKey()))
+        if (out.containsKey(advancement.getKey()))
             return;
         NamespacedKey parentKey = advancement.getParent();
-        if (parentKey != null && !loadedKeys.contains(parentKey)) {
+        if (parentKey != null && !out.containsKey(parentKey)) {
             Advancement parent = Utils.fromKey(parentKey);
             if (parent != null) {
-                registerAdvancement(parent);
+                buildAdvancement(parent, out, cache);
+            }
+        }
+
+        String source = null;
+        if (cache != null && Utils.keyIsSFA(advancement.getKey())) {
+            source = getSourceHash(SFAdvancements.instance().getAdvancementConfig(), advancement.getKey().getKey(), advancement.getDisplay());
+        }
+        if (source != null) {
+            JsonObject cached = cache.get(advancement.getKey(), source);
+            if (cached != null) {
+                out.put(advancement.getKey(), cached);
+                return;
             }
         }
 
@@ -158,7 +349,39 @@ public class VanillaHook {
                 advancement.isHidden(),
                 null,
                 true);
-        loadAdvancement(advancement.getKey(), json);
+        out.put(advancement.getKey(), json);
+        if (source != null) {
+            cache.put(advancement.getKey(), source, json);
+        }
+    }
+
+    /**
+     * @return the hash of the config section at path and the display item, or null if the entry wasn't loaded from that config
+     */
+    @Nullable
+    private static String getSourceHash(@Nullable ConfigurationSection config, String path, @Nullable ItemStack display) {
+        if (config == null) {
+            return null;
+        }
+        ConfigurationSection section = config.getConfigurationSection(path);
+        return section == null ? null : VanillaJsonCache.hashSection(section, display);
+    }
+
+    /**
+     * everything besides the config section that the generated json depends on
+     */
+    private String getCacheVersion() {
+        Plugin slimefun = Bukkit.getPluginManager().getPlugin("Slimefun");
+        return Bukkit.getBukkitVersion()
+                + "|" + (slimefun == null ? "?" : slimefun.getDescription().getVersion())
+                + "|" + SFAdvancements.instance().getDescription().getVersion()
+                + "|" + backgroundStyle;
+    }
+
+    @Nullable
+    private static NamespacedKey getParent(JsonObject json) {
+        JsonElement parent = json.get("parent");
+        return parent == null ? null : NamespacedKey.fromString(parent.getAsString());
     }
 
     private void logGroupDebug(String groupId, String rawBackground, String resolvedBackground, NamespacedKey key,
@@ -191,17 +414,19 @@ public class VanillaHook {
         return res;
     }
 
-    private void loadAdvancement(NamespacedKey key, JsonObject json) {
+    private boolean loadAdvancement(NamespacedKey key, JsonObject json) {
         try {
             org.bukkit.advancement.Advancement loaded = Bukkit.getUnsafe().loadAdvancement(key, json.toString());
             if (loaded != null) {
                 loadedKeys.add(key);
+                return true;
             } else {
                 SFAdvancements.warn("无法注册进度 " + key + ": 返回空对象");
             }
         } catch (Exception e) {
             SFAdvancements.warn("无法注册进度 " + key + ": " + e.getMessage());
         }
+        return false;
     }
 
     private void logVanillaRootBackground() {
@@ -253,17 +478,12 @@ public class VanillaHook {
 
     @Nullable
     private static Object invokeOptional(Object target, String... names) {
-        for (String name : names) {
-            try {
-                Method method = target.getClass().getMethod(name);
-                return method.invoke(target);
-            } catch (NoSuchMethodException ignored) {
-                // Expected on older versions, try next method name.
-            } catch (Exception ignored) {
-                logDebugException("reflection:" + name, ignored);
-            }
+        try {
+            return MethodCache.invoke(target, names);
+        } catch (Exception e) {
+            logDebugException("reflection:" + String.join("/", names), e);
+            return null;
         }
-        return null;
     }
 
     @Nullable
@@ -440,14 +660,17 @@ public class VanillaHook {
     }
 
     private static boolean tryAddCustomModelDataComponent(JsonObject components, ItemMeta meta) {
+        MethodHandle hasMethod = MethodCache.find(meta.getClass(), "hasCustomModelDataComponent");
+        MethodHandle getMethod = MethodCache.find(meta.getClass(), "getCustomModelDataComponent");
+        if (hasMethod == null || getMethod == null) {
+            return false;
+        }
         try {
-            Method hasMethod = meta.getClass().getMethod("hasCustomModelDataComponent");
-            Object hasValue = hasMethod.invoke(meta);
+            Object hasValue = MethodCache.invoke(hasMethod, meta);
             if (!(hasValue instanceof Boolean) || !((Boolean) hasValue)) {
                 return false;
             }
-            Method getMethod = meta.getClass().getMethod("getCustomModelDataComponent");
-            Object component = getMethod.invoke(meta);
+            Object component = MethodCache.invoke(getMethod, meta);
             if (component == null) {
                 return false;
             }
@@ -472,9 +695,6 @@ public class VanillaHook {
                 components.add("minecraft:custom_model_data", custom);
                 return true;
             }
-        } catch (NoSuchMethodException e) {
-            logDebugException("custom-model-data-component:missing-method", e);
-            return false;
         } catch (Exception e) {
             logDebugException("custom-model-data-component:failed", e);
             return false;
@@ -485,8 +705,7 @@ public class VanillaHook {
     @Nullable
     private static JsonArray toJsonArray(Object component, String methodName) {
         try {
-            Method method = component.getClass().getMethod(methodName);
-            Object value = method.invoke(component);
+            Object value = MethodCache.invoke(component, methodName);
             if (!(value instanceof List)) {
                 return null;
             }
@@ -514,8 +733,7 @@ public class VanillaHook {
     @Nullable
     private static JsonArray toColorJsonArray(Object component, String methodName) {
         try {
-            Method method = component.getClass().getMethod(methodName);
-            Object value = method.invoke(component);
+            Object value = MethodCache.invoke(component, methodName);
             if (!(value instanceof List)) {
                 return null;
             }
@@ -528,8 +746,7 @@ public class VanillaHook {
                 if (entry == null) {
                     continue;
                 }
-                Method asRgb = entry.getClass().getMethod("asRGB");
-                Object rgb = asRgb.invoke(entry);
+                Object rgb = MethodCache.invoke(entry, "asRGB");
                 if (rgb instanceof Number) {
                     array.add((Number) rgb);
                 }
@@ -542,23 +759,22 @@ public class VanillaHook {
     }
 
     private static void addItemModel(JsonObject components, ItemMeta meta) {
+        MethodHandle hasMethod = MethodCache.find(meta.getClass(), "hasItemModel");
+        MethodHandle getMethod = MethodCache.find(meta.getClass(), "getItemModel");
+        if (hasMethod == null || getMethod == null) {
+            return;
+        }
         try {
-            Method hasMethod = meta.getClass().getMethod("hasItemModel");
-            Object hasValue = hasMethod.invoke(meta);
+            Object hasValue = MethodCache.invoke(hasMethod, meta);
             if (!(hasValue instanceof Boolean) || !((Boolean) hasValue)) {
                 return;
             }
-            Method getMethod = meta.getClass().getMethod("getItemModel");
-            Object key = getMethod.invoke(meta);
+            Object key = MethodCache.invoke(getMethod, meta);
             if (key != null) {
                 components.addProperty("minecraft:item_model", key.toString());
             }
-        } catch (NoSuchMethodException e) {
-            logDebugException("item-model:missing-method", e);
-            return;
         } catch (Exception e) {
             logDebugException("item-model:failed", e);
-            return;
         }
     }
 
@@ -667,17 +883,32 @@ public class VanillaHook {
         return JsonParser.parseString(ComponentSerializer.toString(component));
     }
 
+    /**
+     * starts a batched sync of a player's vanilla advancements with their sfa progress,
+     * replacing any sync that is still running for that player
+     *
+     * @param p the player
+     */
     public void syncProgress(Player p) {
-        for (AdvancementGroup group : SFAdvancements.getRegistry().getAdvancementGroups()) {
-            complete(p, Utils.keyOf(group.getId()));
+        List<NamespacedKey> keys = new ArrayList<>();
+        for (AdvancementGroup group : SFAdvancements.getRegistry().getAdvancementGroupsSnapshot()) {
+            keys.add(Utils.keyOf(group.getId()));
         }
-        for (Advancement adv : SFAdvancements.getRegistry().getAdvancements().values()) {
-            if (SFAdvancements.getAdvManager().isCompleted(p, adv)) {
-                complete(p, adv.getKey());
-            } else {
-                revoke(p, adv.getKey());
-            }
+        int groupCount = keys.size();
+        keys.addAll(SFAdvancements.getRegistry().getAdvancements().keySet());
+
+        long budgetNanos = TimeUnit.MILLISECONDS.toNanos(
+                Math.max(1, SFAdvancements.getMainConfig().getConfiguration().getInt("vanilla-sync-budget-ms", 2)));
+        VanillaSyncTask task = new VanillaSyncTask(this, p.getUniqueId(), keys, groupCount, budgetNanos);
+        VanillaSyncTask previous = syncTasks.put(p.getUniqueId(), task);
+        if (previous != null) {
+            previous.cancel();
         }
+        task.start();
+    }
+
+    void onSyncFinished(UUID player, VanillaSyncTask task) {
+        syncTasks.remove(player, task);
     }
 
     public void complete(Player p, NamespacedKey key) {
@@ -686,7 +917,7 @@ public class VanillaHook {
             SFAdvancements.warn("尝试完成未注册的成就 " + key);
             return;
         }
-        Utils.runSync(() -> {
+        runOnMainThread(() -> {
             AdvancementProgress progress = p.getAdvancementProgress(advancement);
             if (!progress.isDone()) {
                 progress.awardCriteria("impossible");
@@ -700,7 +931,7 @@ public class VanillaHook {
             SFAdvancements.warn("尝试撤销未注册的成就 " + key);
             return;
         }
-        Utils.runSync(() -> {
+        runOnMainThread(() -> {
             AdvancementProgress progress = p.getAdvancementProgress(advancement);
             if (progress.isDone()) {
                 progress.revokeCriteria("impossible");
@@ -709,6 +940,32 @@ public class VanillaHook {
 
     }
 
+    /**
+     * runs right away on the main thread, so completions handled on shutdown don't schedule a task
+     */
+    private static void runOnMainThread(Runnable runnable) {
+        if (Bukkit.isPrimaryThread()) {
+            runnable.run();
+        } else {
+            Utils.runSync(runnable);
+        }
+    }
+
+    private static boolean isVersionAtLeast(int major, int minor, int patch) {
+        try {
+            String[] parts = Bukkit.getBukkitVersion().split("-")[0].split("\\.");
+            int[] version = new int[3];
+            for (int i = 0; i < version.length && i < parts.length; i++) {
+                version[i] = Integer.parseInt(parts[i]);
+            }
+            if (version[0] != major) return version[0] > major;
+            if (version[1] != minor) return version[1] > minor;
+            return version[2] >= patch;
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
     /**
      * Detects if the server supports the new custom_model_data format introduced in 1.21.2.
      * In 1.21.2+, custom_model_data uses object format: {"floats": [...], "flags": [...], ...}
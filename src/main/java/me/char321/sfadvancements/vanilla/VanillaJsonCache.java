@@ -0,0 +1,174 @@
+package me.char321.sfadvancements.vanilla;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.thebusybiscuit.slimefun4.api.items.SlimefunItem;
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.util.Utils;
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.inventory.ItemStack;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+
+/**
+ * caches the generated vanilla advancement json on disk,
+ * keyed by a hash of the config section it was generated from and, for slimefun display items, the item id and addon version,
+ * since those items come from slimefun and addons <br>
+ * the whole cache is thrown away when the server, slimefun or sfa version changes. the file is only written when it changed
+ */
+class VanillaJsonCache {
+    private final File file;
+    private final String version;
+    private final Map<NamespacedKey, Entry> entries = new HashMap<>();
+    private final Map<NamespacedKey, Entry> used = new HashMap<>();
+    private int hits = 0;
+    private int misses = 0;
+    private int loaded = 0;
+    private boolean changed = false;
+
+    VanillaJsonCache(File file, String version) {
+        this.file = file;
+        this.version = version;
+    }
+
+    void load() {
+        entries.clear();
+        used.clear();
+        hits = 0;
+        misses = 0;
+        loaded = 0;
+        changed = false;
+        if (!file.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
+            JsonElement cachedVersion = root.get("version");
+            if (cachedVersion == null || !version.equals(cachedVersion.getAsString())) {
+                return;
+            }
+            for (Map.Entry<String, JsonElement> entry : root.getAsJsonObject("entries").entrySet()) {
+                NamespacedKey key = NamespacedKey.fromString(entry.getKey());
+                if (key == null) {
+                    continue;
+                }
+                JsonObject value = entry.getValue().getAsJsonObject();
+                entries.put(key, new Entry(value.get("source").getAsString(), value.getAsJsonObject("json")));
+            }
+            loaded = entries.size();
+        } catch (IOException | RuntimeException e) {
+            SFAdvancements.logger().log(Level.WARNING, "读取原版进度缓存时发生错误, 将重新生成", e);
+            entries.clear();
+            loaded = 0;
+        }
+    }
+
+    /**
+     * @param key the key of the advancement
+     * @param source the hash of the section the advancement was loaded from
+     * @return the cached json, or null if the section changed since it was cached
+     */
+    @Nullable
+    JsonObject get(NamespacedKey key, String source) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.source.equals(source)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        used.put(key, entry);
+        return entry.json;
+    }
+
+    void put(NamespacedKey key, String source, JsonObject json) {
+        Entry entry = new Entry(source, json);
+        entries.put(key, entry);
+        used.put(key, entry);
+        changed = true;
+    }
+
+    /**
+     * writes the entries that were used since the last load, dropping everything else <br>
+     * nothing is written if every loaded entry was used and none were added
+     */
+    void save() {
+        if (!changed && used.size() == loaded) {
+            return;
+        }
+        JsonObject root = new JsonObject();
+        root.addProperty("version", version);
+        JsonObject jsonEntries = new JsonObject();
+        for (Map.Entry<NamespacedKey, Entry> entry : used.entrySet()) {
+            JsonObject value = new JsonObject();
+            value.addProperty("source", entry.getValue().source);
+            value.add("json", entry.getValue().json);
+            jsonEntries.add(entry.getKey().toString(), value);
+        }
+        root.add("entries", jsonEntries);
+
+        file.getParentFile().mkdirs();
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, false), StandardCharsets.UTF_8))) {
+            writer.write(root.toString());
+        } catch (IOException e) {
+            SFAdvancements.logger().log(Level.WARNING, "无法保存原版进度缓存", e);
+        }
+    }
+
+    int getHits() {
+        return hits;
+    }
+
+    int getMisses() {
+        return misses;
+    }
+
+    /**
+     * hashes every value in a config section, in a stable order,
+     * together with the id and addon version of the slimefun item the display resolved to
+     *
+     * @param section the section an advancement or group was loaded from
+     * @param display the display item of the advancement or group
+     * @return the hash of the section
+     */
+    static String hashSection(ConfigurationSection section, @Nullable ItemStack display) {
+        Map<String, Object> values = new TreeMap<>(section.getValues(true));
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (entry.getValue() instanceof ConfigurationSection) {
+                continue;
+            }
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+        SlimefunItem sfItem = display == null ? null : SlimefunItem.getByItem(display);
+        if (sfItem != null) {
+            sb.append(sfItem.getId()).append('@').append(sfItem.getAddon().getPluginVersion());
+        }
+        return Utils.sha256(sb.toString());
+    }
+
+    private static class Entry {
+        final String source;
+        final JsonObject json;
+
+        Entry(String source, JsonObject json) {
+            this.source = source;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package me.char321.sfadvancements.vanilla;
+
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.core.criteria.progress.PlayerProgress;
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.advancement.AdvancementProgress;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * syncs the vanilla advancements of a player with their sfa progress <br>
+ * only the advancements that differ are awarded or revoked,
+ * and the work is spread over multiple ticks so it stays under the configured time budget
+ */
+class VanillaSyncTask implements Runnable {
+    private final VanillaHook hook;
+    private final UUID player;
+    private final List<NamespacedKey> keys;
+    private final int groupCount;
+    private final long budgetNanos;
+    private BukkitTask task;
+    private int index = 0;
+    private int ticks = 0;
+    private int awarded = 0;
+    private int revoked = 0;
+
+    /**
+     * @param keys the keys to sync, with all group keys first
+     * @param groupCount how many of the keys are groups, which are always completed
+     */
+    VanillaSyncTask(VanillaHook hook, UUID player, List<NamespacedKey> keys, int groupCount, long budgetNanos) {
+        this.hook = hook;
+        this.player = player;
+        this.keys = keys;
+        this.groupCount = groupCount;
+        this.budgetNanos = budgetNanos;
+    }
+
+    void start() {
+        task = Bukkit.getScheduler().runTaskTimer(SFAdvancements.instance(), this, 0L, 1L);
+    }
+
+    void cancel() {
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    @Override
+    public void run() {
+        Player p = Bukkit.getPlayer(player);
+        if (p == null) {
+            finish();
+            return;
+        }
+
+        ticks++;
+        PlayerProgress progress = SFAdvancements.getAdvManager().getProgress(p);
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        while (index < keys.size()) {
+            NamespacedKey key = keys.get(index);
+            boolean shouldBeDone = index < groupCount || progress.isCompleted(key);
+            index++;
+
+            org.bukkit.advancement.Advancement advancement = Bukkit.getAdvancement(key);
+            if (advancement != null) {
+                AdvancementProgress vanilla = p.getAdvancementProgress(advancement);
+                if (shouldBeDone && !vanilla.isDone()) {
+                    vanilla.awardCriteria("impossible");
+                    awarded++;
+                } else if (!shouldBeDone && vanilla.isDone()) {
+                    vanilla.revokeCriteria("impossible");
+                    revoked++;
+                }
+            }
+
+            if (System.nanoTime() >= deadline) {
+                SFAdvancements.getStats().getVanillaSync().record(System.nanoTime() - start);
+                return;
+            }
+        }
+        SFAdvancements.getStats().getVanillaSync().record(System.nanoTime() - start);
+
+        if (SFAdvancements.getMainConfig().getBoolean("debug")) {
+            SFAdvancements.info("已同步玩家 " + p.getName() + " 的原版进度: 完成 " + awarded + ", 撤销 " + revoked + ", 用时 " + ticks + " tick");
+        }
+        finish();
+    }
+
+    private void finish() {
+        cancel();
+        hook.onSyncFinished(player, this);
+    }
+}
@@ -0,0 +1,74 @@
+package me.char321.sfadvancements.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlacedBlockTrackerTest {
+
+    @Test
+    void matchesHashSet() {
+        // few distinct values in a small table, so runs are long, wrap around the end and get split by removals
+        Random random = new Random(1);
+        PlacedBlockTracker.ChunkBlocks blocks = new PlacedBlockTracker.ChunkBlocks(null);
+        Set<Integer> model = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            int value = random.nextInt(48);
+            if (random.nextInt(3) == 0) {
+                blocks.remove(value);
+                model.remove(value);
+            } else {
+                blocks.add(value);
+                model.add(value);
+            }
+            int probe = random.nextInt(48);
+            assertEquals(model.contains(probe), blocks.contains(probe), "value " + probe + " after " + i + " changes");
+        }
+        assertArrayEquals(sorted(model), sorted(blocks.toArray()));
+    }
+
+    @Test
+    void removeKeepsLaterEntriesOfTheRun() {
+        PlacedBlockTracker.ChunkBlocks blocks = new PlacedBlockTracker.ChunkBlocks(null);
+        for (int i = 0; i < 4; i++) {
+            blocks.add(i);
+        }
+        for (int i = 0; i < 4; i++) {
+            blocks.remove(i);
+            assertFalse(blocks.contains(i));
+            for (int j = i + 1; j < 4; j++) {
+                assertTrue(blocks.contains(j), j + " lost after removing " + i);
+            }
+        }
+        assertEquals(0, blocks.toArray().length);
+    }
+
+    @Test
+    void loadsStoredPositions() {
+        int[] stored = {0, 5, 4095, 70000};
+        PlacedBlockTracker.ChunkBlocks blocks = new PlacedBlockTracker.ChunkBlocks(stored);
+        for (int value : stored) {
+            assertTrue(blocks.contains(value));
+        }
+        assertFalse(blocks.contains(1));
+        assertArrayEquals(sorted(stored), sorted(blocks.toArray()));
+    }
+
+    private static int[] sorted(Set<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    private static int[] sorted(int[] values) {
+        int[] res = values.clone();
+        Arrays.sort(res);
+        return res;
+    }
+}
@@ -0,0 +1,333 @@
+package me.char321.sfadvancements.core.criteria.progress;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import me.char321.sfadvancements.SFAdvancements;
+import me.char321.sfadvancements.api.AdvancementBuilder;
+import me.char321.sfadvancements.api.AdvancementGroup;
+import me.char321.sfadvancements.api.criteria.Criterion;
+import io.github.thebusybiscuit.slimefun4.implementation.Slimefun;
+import me.char321.sfadvancements.util.Utils;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * races progress changes against concurrent saves and unloads, and checks that nothing is lost <br>
+ * one thread makes seeded random changes to a few players while keeping a model of the expected progress,
+ * and the saver threads keep saving random players and reading the saved file back. <br>
+ * every saved file has to match the model as it was at some point between the start of the save and the read,
+ * and a player loaded again after an unload has to match the model exactly.
+ * the seed is fixed, so the changes are the same on every run and a failure can be reproduced
+ */
+class ProgressStressTest {
+    private static final long SEED = 1;
+    private static final int OPS = 20000;
+    private static final int PLAYERS = 4;
+    private static final int ADVANCEMENTS = 8;
+    private static final int CRITERIA = 3;
+    private static final int SAVERS = 3;
+
+    private final Random random = new Random(SEED);
+    private final List<Advancement> advancements = new ArrayList<>();
+    private final List<Player> players = new ArrayList<>();
+    private final Queue<String> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicLong checkedSaves = new AtomicLong();
+    private volatile boolean running = true;
+    private int unloads = 0;
+
+    @BeforeAll
+    static void setUp() {
+        MockBukkit.mock();
+        MockBukkit.load(Slimefun.class);
+        // sfa refuses to start without it
+        MockBukkit.createMockPlugin("GuizhanLibPlugin");
+        MockBukkit.load(SFAdvancements.class);
+        SFAdvancements.getMainConfig().setValue("use-advancements-api", false);
+        SFAdvancements.getMainConfig().setValue("auto-update", false);
+        // loads the default groups and advancements
+        MockBukkit.getMock().getScheduler().performOneTick();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void concurrentSavesDontLoseProgress() throws Exception {
+        createAdvancements(ADVANCEMENTS);
+        for (int i = 0; i < PLAYERS; i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            Files.deleteIfExists(fileOf(uuid).toPath());
+            players.add(new Player(uuid, SFAdvancements.getAdvManager().getProgress(uuid)));
+        }
+
+        List<Thread> savers = new ArrayList<>();
+        for (int i = 0; i < SAVERS; i++) {
+            long seed = SEED + i + 1;
+            Thread thread = new Thread(() -> saveLoop(new Random(seed)), "SFAdvancements-Stress-" + i);
+            thread.start();
+            savers.add(thread);
+        }
+
+        try {
+            for (int i = 0; i < OPS && failures.isEmpty(); i++) {
+                mutate();
+            }
+        } catch (Throwable t) {
+            fail("修改进度时发生错误: " + t);
+        } finally {
+            running = false;
+            for (Thread thread : savers) {
+                thread.join();
+            }
+        }
+
+        for (Player player : players) {
+            unloadAndCheck(player);
+        }
+
+        assertTrue(failures.isEmpty(), () -> failures.size() + " 次失败, 例如:\n" + String.join("\n", failures.stream().limit(10).toList()));
+        assertTrue(unloads > 0, "没有卸载过玩家");
+        assertTrue(checkedSaves.get() > 0, "没有校验过保存");
+    }
+
+    private void mutate() throws IOException {
+        Player player = players.get(random.nextInt(players.size()));
+        Advancement adv = advancements.get(random.nextInt(advancements.size()));
+        int criterion = random.nextInt(CRITERIA);
+        double op = random.nextDouble();
+
+        if (op >= 0.98) {
+            unloadAndCheck(player);
+            return;
+        }
+
+        PlayerProgress progress = player.progress;
+        // the model changes together with the progress, so a save sees both or neither
+        synchronized (progress) {
+            if (op < 0.6) {
+                progress.doCriterion(adv.criteria[criterion]);
+                player.doCriterion(adv, criterion);
+            } else if (op < 0.78) {
+                progress.completeCriterion(adv.criteria[criterion]);
+                player.completeCriterion(adv, criterion);
+            } else {
+                progress.revokeAdvancements(List.of(adv.key));
+                player.revoke(adv);
+            }
+            player.history.add(player.snapshot());
+        }
+    }
+
+    private void unloadAndCheck(Player player) throws IOException {
+        SFAdvancements.getAdvManager().unload(player.uuid);
+        unloads++;
+        Map<String, List<Integer>> stored = read(player.uuid);
+        Map<String, List<Integer>> expected = player.snapshot();
+        if (!expected.equals(stored)) {
+            fail(player.uuid + " 卸载后保存的进度与预期不符: 期望 " + expected + ", 实际 " + stored);
+        }
+
+        player.progress = SFAdvancements.getAdvManager().getProgress(player.uuid);
+        for (Advancement adv : advancements) {
+            for (int i = 0; i < CRITERIA; i++) {
+                int want = player.progressOf(adv, i);
+                int got = player.progress.getCriterionProgress(adv.criteria[i]);
+                if (want != got) {
+                    fail(player.uuid + " 重新读取后 " + adv.key + "/" + i + " 期望 " + want + ", 实际 " + got);
+                }
+            }
+            if (player.isDone(adv) != player.progress.isCompleted(adv.key)) {
+                fail(player.uuid + " 重新读取后 " + adv.key + " 的完成状态不符");
+            }
+        }
+    }
+
+    private void saveLoop(Random random) {
+        while (running && failures.isEmpty()) {
+            Player player = players.get(random.nextInt(players.size()));
+            try {
+                int before = player.history.size() - 1;
+                PlayerProgress progress = SFAdvancements.getAdvManager().getPlayerMap().get(player.uuid);
+                if (progress == null) {
+                    // being unloaded right now
+                    continue;
+                }
+                progress.save();
+                Map<String, List<Integer>> stored = read(player.uuid);
+                int after = player.history.size() - 1;
+
+                boolean matched = false;
+                for (int i = Math.max(0, before); i <= after && !matched; i++) {
+                    matched = player.history.get(i).equals(stored);
+                }
+                checkedSaves.incrementAndGet();
+                if (!matched) {
+                    fail(player.uuid + " 保存的进度不对应第 " + before + " 到 " + after + " 次修改后的任何状态: " + stored);
+                }
+            } catch (Throwable t) {
+                fail("保存进度时发生错误: " + t);
+            }
+        }
+    }
+
+    private void createAdvancements(int count) {
+        AdvancementGroup group = new AdvancementGroup("stress", new ItemStack(Material.STONE));
+        group.register();
+        for (int i = 0; i < count; i++) {
+            Criterion[] criteria = new Criterion[CRITERIA];
+            for (int j = 0; j < CRITERIA; j++) {
+                criteria[j] = new Criterion("c" + j, 1 + random.nextInt(5));
+            }
+            NamespacedKey key = Utils.keyOf("stress_" + i);
+            new AdvancementBuilder()
+                    .key(key)
+                    .group(group)
+                    .display(new ItemStack(Material.STONE))
+                    .frame("TASK")
+                    .name("stress " + i)
+                    .criteria(Arrays.asList(criteria))
+                    .register();
+            advancements.add(new Advancement(key, criteria));
+        }
+    }
+
+    /**
+     * reads a saved progress file into the same shape as {@link Player#snapshot()}
+     */
+    private static Map<String, List<Integer>> read(UUID uuid) throws IOException {
+        Map<String, List<Integer>> res = new HashMap<>();
+        File file = fileOf(uuid);
+        if (!file.exists()) {
+            return res;
+        }
+        JsonObject object;
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            object = JsonParser.parseReader(reader).getAsJsonObject();
+        }
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            JsonObject adv = entry.getValue().getAsJsonObject();
+            JsonObject criteria = adv.getAsJsonObject("criteria");
+            List<Integer> state = new ArrayList<>();
+            state.add(adv.get("done").getAsBoolean() ? 1 : 0);
+            for (int i = 0; i < CRITERIA; i++) {
+                JsonElement value = criteria.get("c" + i);
+                state.add(value == null ? 0 : value.getAsInt());
+            }
+            res.put(entry.getKey(), state);
+        }
+        return res;
+    }
+
+    private static File fileOf(UUID uuid) {
+        return new File(SFAdvancements.instance().getDataFolder(), "advancements/" + uuid + ".json");
+    }
+
+    private void fail(String message) {
+        failures.add(message);
+    }
+
+    private record Advancement(NamespacedKey key, Criterion[] criteria) {}
+
+    /**
+     * a test player, with the model of what their progress should be
+     */
+    private static final class Player {
+        final UUID uuid;
+        volatile PlayerProgress progress;
+        // the model, by advancement: whether it is done, then the progress of each criterion
+        final Map<NamespacedKey, int[]> model = new HashMap<>();
+        // the state of the model after every change, the first one being before any change
+        final List<Map<String, List<Integer>>> history = Collections.synchronizedList(new ArrayList<>());
+
+        Player(UUID uuid, PlayerProgress progress) {
+            this.uuid = uuid;
+            this.progress = progress;
+            history.add(snapshot());
+        }
+
+        void doCriterion(Advancement adv, int criterion) {
+            int[] state = model.computeIfAbsent(adv.key, k -> new int[CRITERIA + 1]);
+            if (state[0] == 1) {
+                return;
+            }
+            if (state[criterion + 1] < adv.criteria[criterion].getCount()) {
+                state[criterion + 1]++;
+                updateDone(adv, state);
+            }
+        }
+
+        void completeCriterion(Advancement adv, int criterion) {
+            int[] state = model.computeIfAbsent(adv.key, k -> new int[CRITERIA + 1]);
+            if (state[criterion + 1] >= adv.criteria[criterion].getCount()) {
+                return;
+            }
+            state[criterion + 1] = adv.criteria[criterion].getCount();
+            updateDone(adv, state);
+        }
+
+        void revoke(Advancement adv) {
+            int[] state = model.get(adv.key);
+            if (state != null) {
+                Arrays.fill(state, 0);
+            }
+        }
+
+        private void updateDone(Advancement adv, int[] state) {
+            for (int i = 0; i < CRITERIA; i++) {
+                if (state[i + 1] < adv.criteria[i].getCount()) {
+                    return;
+                }
+            }
+            state[0] = 1;
+        }
+
+        int progressOf(Advancement adv, int criterion) {
+            int[] state = model.get(adv.key);
+            return state == null ? 0 : state[criterion + 1];
+        }
+
+        boolean isDone(Advancement adv) {
+            int[] state = model.get(adv.key);
+            return state != null && state[0] == 1;
+        }
+
+        Map<String, List<Integer>> snapshot() {
+            Map<String, List<Integer>> res = new HashMap<>();
+            for (Map.Entry<NamespacedKey, int[]> entry : model.entrySet()) {
+                List<Integer> state = new ArrayList<>();
+                for (int value : entry.getValue()) {
+                    state.add(value);
+                }
+                res.put(entry.getKey().toString(), state);
+            }
+            return res;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package me.char321.sfadvancements.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    @Test
+    void firesOnDeadline() {
+        TimerWheel<String> wheel = new TimerWheel<>(8);
+        wheel.schedule(3, "a");
+        List<String> fired = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(fired.isEmpty(), "fired early at tick " + i);
+            wheel.advance(fired::add);
+        }
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void waitsForTheRightTurnOfTheWheel() {
+        // 4 slots, so the slot of a deadline 10 ticks away comes around twice before it is due
+        TimerWheel<String> wheel = new TimerWheel<>(4);
+        wheel.schedule(10, "a");
+        List<Integer> firedAt = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            int tick = i;
+            wheel.advance(value -> firedAt.add(tick));
+        }
+        assertEquals(List.of(10), firedAt);
+    }
+
+    @Test
+    void cancelledTimeoutsDoNotFire() {
+        TimerWheel<String> wheel = new TimerWheel<>(4);
+        TimerWheel.Timeout<String> near = wheel.schedule(2, "near");
+        TimerWheel.Timeout<String> far = wheel.schedule(9, "far");
+        wheel.schedule(9, "kept");
+        near.cancel();
+        far.cancel();
+        assertEquals(3, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            wheel.advance(fired::add);
+        }
+        assertEquals(List.of("kept"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void actionCanReschedule() {
+        TimerWheel<Integer> wheel = new TimerWheel<>(4);
+        wheel.schedule(1, 0);
+        List<Integer> fired = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            wheel.advance(value -> {
+                fired.add(value);
+                wheel.schedule(5, value + 1);
+            });
+        }
+        // fires on ticks 1, 6 and 11
+        assertEquals(List.of(0, 1, 2), fired);
+    }
+
+    @Test
+    void matchesDeadlines() {
+        Random random = new Random(1);
+        TimerWheel<Integer> wheel = new TimerWheel<>(16);
+        Map<Integer, Long> expected = new HashMap<>();
+        Map<Integer, TimerWheel.Timeout<Integer>> timeouts = new HashMap<>();
+        int next = 0;
+        long tick = 0;
+        for (int i = 0; i < 5000; i++) {
+            long delay = random.nextInt(100);
+            timeouts.put(next, wheel.schedule(delay, next));
+            expected.put(next, tick + Math.max(1, delay));
+            next++;
+            if (random.nextInt(4) == 0) {
+                int id = random.nextInt(next);
+                if (expected.remove(id) != null) {
+                    timeouts.get(id).cancel();
+                }
+            }
+
+            tick++;
+            long now = tick;
+            wheel.advance(id -> {
+                Long deadline = expected.remove(id);
+                assertEquals(Long.valueOf(now), deadline, "timeout " + id);
+            });
+            for (long deadline : expected.values()) {
+                assertTrue(deadline > now, "missed a deadline at tick " + now);
+            }
+        }
+    }
+}